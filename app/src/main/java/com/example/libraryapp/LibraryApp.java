@@ -0,0 +1,16 @@
+package com.example.libraryapp;
+
+import android.app.Application;
+import com.example.libraryapp.data.SupabaseClient;
+
+public class LibraryApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Build the client and open its connection while LoginActivity inflates, instead of
+        // on the first login request. warmUp is asynchronous and never fails.
+        SupabaseClient.getInstance(this).warmUp();
+    }
+}
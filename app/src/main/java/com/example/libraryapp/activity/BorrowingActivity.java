@@ -13,17 +13,20 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import com.bumptech.glide.Glide;
 import com.example.libraryapp.R;
+import com.example.libraryapp.core.concurrency.RequestScope;
 import com.example.libraryapp.data.SupabaseClient;
 import com.example.libraryapp.models.Borrowing;
 import com.example.libraryapp.models.LibraryResource;
 import com.example.libraryapp.models.BookDetails;
 import com.example.libraryapp.models.PeriodicalDetails;
 import com.example.libraryapp.models.MediaDetails;
+import com.example.libraryapp.utils.DisplayDates;
 import com.google.android.material.card.MaterialCardView;
 import java.util.concurrent.CompletableFuture;
 
 public class BorrowingActivity extends AppCompatActivity {
     private SupabaseClient supabaseClient;
+    private final RequestScope requestScope = new RequestScope(); // Cancelled in onDestroy
     private LibraryResource resource;
     private int userId;
     private String userName;
@@ -98,10 +101,10 @@ public class BorrowingActivity extends AppCompatActivity {
         // Show loading state
         showLoadingState(true);
         
-        CompletableFuture<LibraryResource> resourceFuture = supabaseClient.getLibraryResourceById(resourceId);
+        CompletableFuture<LibraryResource> resourceFuture = requestScope.track(supabaseClient.getLibraryResourceById(resourceId));
         
         resourceFuture.thenAccept(loadedResource -> {
-            runOnUiThread(() -> {
+            runOnUiThreadIfActive(() -> {
                 if (loadedResource != null) {
                     this.resource = loadedResource;
                     displayResourceDetails();
@@ -113,7 +116,7 @@ public class BorrowingActivity extends AppCompatActivity {
                 showLoadingState(false);
             });
         }).exceptionally(e -> {
-            runOnUiThread(() -> {
+            runOnUiThreadIfActive(() -> {
                 Toast.makeText(this, "Error loading resource: " + e.getMessage(), Toast.LENGTH_LONG).show();
                 finish();
                 showLoadingState(false);
@@ -172,8 +175,7 @@ public class BorrowingActivity extends AppCompatActivity {
         // Add general information first
         if (resource.getCreatedAt() != null) {
             details.append("📅 Added to Library: ")
-                   .append(new java.text.SimpleDateFormat("MMM dd, yyyy", java.util.Locale.getDefault())
-                   .format(resource.getCreatedAt())).append("\n\n");
+                   .append(DisplayDates.day(resource.getCreatedAt())).append("\n\n");
         }
         
         // Category-specific detailed information
@@ -223,8 +225,7 @@ public class BorrowingActivity extends AppCompatActivity {
             
             if (book.getPublicationDate() != null) {
                 details.append("📅 Publication Date: ")
-                       .append(new java.text.SimpleDateFormat("MMM dd, yyyy", java.util.Locale.getDefault())
-                       .format(book.getPublicationDate())).append("\n");
+                       .append(DisplayDates.calendarDay(book.getPublicationDate())).append("\n");
             }
             
             if (book.getType() != null && !book.getType().isEmpty()) {
@@ -257,8 +258,7 @@ public class BorrowingActivity extends AppCompatActivity {
             
             if (periodical.getPublicationDate() != null) {
                 details.append("📅 Publication Date: ")
-                       .append(new java.text.SimpleDateFormat("MMM dd, yyyy", java.util.Locale.getDefault())
-                       .format(periodical.getPublicationDate())).append("\n");
+                       .append(DisplayDates.calendarDay(periodical.getPublicationDate())).append("\n");
             }
             
             if (periodical.getType() != null && !periodical.getType().isEmpty()) {
@@ -321,10 +321,10 @@ public class BorrowingActivity extends AppCompatActivity {
         borrowButton.setText("Checking eligibility...");
         borrowButton.setEnabled(false);
         
-        CompletableFuture<Boolean> existingRequestFuture = supabaseClient.checkExistingBorrowingRequest(userId, resource.getResourceId());
+        CompletableFuture<Boolean> existingRequestFuture = requestScope.track(supabaseClient.checkExistingBorrowingRequest(userId, resource.getResourceId()));
         
         existingRequestFuture.thenAccept(hasExistingRequest -> {
-            runOnUiThread(() -> {
+            runOnUiThreadIfActive(() -> {
                 if (hasExistingRequest) {
                     borrowButton.setText("Request Pending");
                     borrowButton.setEnabled(false);
@@ -335,7 +335,7 @@ public class BorrowingActivity extends AppCompatActivity {
                 }
             });
         }).exceptionally(e -> {
-            runOnUiThread(() -> {
+            runOnUiThreadIfActive(() -> {
                 borrowButton.setText("Request to Borrow");
                 borrowButton.setEnabled(true);
                 showStatusMessage("Could not verify existing requests. You may still proceed.", true);
@@ -345,10 +345,10 @@ public class BorrowingActivity extends AppCompatActivity {
     }
     
     private void checkBorrowingLimit() {
-        CompletableFuture<Boolean> borrowingLimitFuture = supabaseClient.checkUserBorrowingLimit(userId);
+        CompletableFuture<Boolean> borrowingLimitFuture = requestScope.track(supabaseClient.checkUserBorrowingLimit(userId));
         
         borrowingLimitFuture.thenAccept(canBorrow -> {
-            runOnUiThread(() -> {
+            runOnUiThreadIfActive(() -> {
                 if (canBorrow) {
                     borrowButton.setText("Request to Borrow");
                     borrowButton.setEnabled(true);
@@ -360,7 +360,7 @@ public class BorrowingActivity extends AppCompatActivity {
                 }
             });
         }).exceptionally(e -> {
-            runOnUiThread(() -> {
+            runOnUiThreadIfActive(() -> {
                 borrowButton.setText("Request to Borrow");
                 borrowButton.setEnabled(true);
                 showStatusMessage("Could not verify borrowing limit. You may still proceed.", true);
@@ -377,12 +377,13 @@ public class BorrowingActivity extends AppCompatActivity {
         builder.setTitle("Confirm Borrowing Request")
                .setMessage("Do you want to request to borrow \"" + resource.getTitle() + "\"?\n\n" +
                           "This will create a pending request that needs librarian approval.")
-               .setPositiveButton("Yes, Request", (dialog, which) -> createBorrowingRequest())
+               .setPositiveButton("Yes, Request", (dialog, which) -> createBorrowingRequest(java.util.UUID.randomUUID().toString()))
                .setNegativeButton("Cancel", null)
                .show();
     }
     
-    private void createBorrowingRequest() {
+    // Retries reuse idempotencyKey, so a request that reached the server before failing is not duplicated
+    private void createBorrowingRequest(String idempotencyKey) {
         // Show loading dialog
         AlertDialog loadingDialog = new AlertDialog.Builder(this)
             .setTitle("Processing Request")
@@ -392,10 +393,10 @@ public class BorrowingActivity extends AppCompatActivity {
         loadingDialog.show();
         
         // Create the borrowing request
-        CompletableFuture<Borrowing> borrowingFuture = supabaseClient.createBorrowingRequest(userId, resource.getResourceId());
+        CompletableFuture<Borrowing> borrowingFuture = supabaseClient.createBorrowingRequest(userId, resource.getResourceId(), idempotencyKey);
         
         borrowingFuture.thenAccept(borrowing -> {
-            runOnUiThread(() -> {
+            runOnUiThreadIfActive(() -> {
                 loadingDialog.dismiss();
                 
                 if (borrowing != null) {
@@ -405,7 +406,7 @@ public class BorrowingActivity extends AppCompatActivity {
                 }
             });
         }).exceptionally(e -> {
-            runOnUiThread(() -> {
+            runOnUiThreadIfActive(() -> {
                 loadingDialog.dismiss();
                 
                 String errorMessage = e.getMessage();
@@ -413,7 +414,7 @@ public class BorrowingActivity extends AppCompatActivity {
                 errorBuilder.setTitle("Request Failed")
                            .setMessage("Failed to create borrowing request:\n\n" + errorMessage)
                            .setPositiveButton("OK", null)
-                           .setNeutralButton("Retry", (dialog, which) -> createBorrowingRequest())
+                           .setNeutralButton("Retry", (dialog, which) -> createBorrowingRequest(idempotencyKey))
                            .show();
                 
                 android.util.Log.e("BorrowingActivity", "Error creating borrowing request: " + errorMessage, e);
@@ -425,8 +426,7 @@ public class BorrowingActivity extends AppCompatActivity {
     private void showSuccessDialog(Borrowing borrowing) {
         String dueDateStr = "Not set";
         if (borrowing.getDueDate() != null) {
-            dueDateStr = new java.text.SimpleDateFormat("MMM dd, yyyy", java.util.Locale.getDefault())
-                .format(borrowing.getDueDate());
+            dueDateStr = DisplayDates.day(borrowing.getDueDate());
         }
         
         // Build comprehensive success message
@@ -476,8 +476,7 @@ public class BorrowingActivity extends AppCompatActivity {
         
         // Format request date
         if (borrowing.getBorrowDate() != null) {
-            String requestDateStr = new java.text.SimpleDateFormat("MMM dd, yyyy 'at' HH:mm", java.util.Locale.getDefault())
-                .format(borrowing.getBorrowDate());
+            String requestDateStr = DisplayDates.dayAndTime(borrowing.getBorrowDate());
             message.append("• Requested: ").append(requestDateStr).append("\n");
         }
         
@@ -561,4 +560,20 @@ public class BorrowingActivity extends AppCompatActivity {
         }
         return super.onOptionsItemSelected(item);
     }
+
+    @Override
+    protected void onDestroy() {
+        // Stop in-flight lookups; a borrow request already sent is left to finish on the server
+        requestScope.cancel();
+        super.onDestroy();
+    }
+
+    // Drops results that arrive after the screen is gone, including the cancellations above
+    private void runOnUiThreadIfActive(Runnable action) {
+        runOnUiThread(() -> {
+            if (requestScope.isActive()) {
+                action.run();
+            }
+        });
+    }
 } 
\ No newline at end of file
@@ -12,6 +12,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.example.libraryapp.R;
+import com.example.libraryapp.core.concurrency.RequestScope;
 import com.example.libraryapp.adapters.BorrowingHistoryAdapter;
 import com.example.libraryapp.data.SupabaseClient;
 import com.example.libraryapp.models.Borrowing;
@@ -23,6 +24,8 @@ public class BorrowingHistoryActivity extends AppCompatActivity {
     private RecyclerView borrowingRecyclerView;
     private BorrowingHistoryAdapter adapter;
     private SupabaseClient supabaseClient;
+    private final RequestScope requestScope = new RequestScope(); // Cancelled in onDestroy
+    private CompletableFuture<List<Borrowing>> historyLoad;
     private SwipeRefreshLayout swipeRefreshLayout;
     private ProgressBar progressBar;
     private TextView emptyStateText;
@@ -82,10 +85,15 @@ public class BorrowingHistoryActivity extends AppCompatActivity {
         
         android.util.Log.d("BorrowingHistory", "Loading borrowing history for user ID: " + userId);
         
-        CompletableFuture<List<Borrowing>> borrowingsFuture = supabaseClient.getUserBorrowingRequestsWithDetails(userId);
+        // onCreate, onResume and pull-to-refresh can overlap; only the latest load matters
+        if (historyLoad != null) {
+            historyLoad.cancel(false);
+        }
+        CompletableFuture<List<Borrowing>> borrowingsFuture = requestScope.track(supabaseClient.getUserBorrowingRequestsWithDetails(userId));
+        historyLoad = borrowingsFuture;
         
         borrowingsFuture.thenAccept(borrowings -> {
-            runOnUiThread(() -> {
+            runOnUiThreadIfActive(borrowingsFuture, () -> {
                 showLoading(false);
                 
                 if (borrowings != null && !borrowings.isEmpty()) {
@@ -128,7 +136,7 @@ public class BorrowingHistoryActivity extends AppCompatActivity {
                 }
             });
         }).exceptionally(e -> {
-            runOnUiThread(() -> {
+            runOnUiThreadIfActive(borrowingsFuture, () -> {
                 showLoading(false);
                 String errorMessage = "Error loading borrowing history: " + e.getMessage();
                 Toast.makeText(this, errorMessage, Toast.LENGTH_LONG).show();
@@ -214,4 +222,19 @@ public class BorrowingHistoryActivity extends AppCompatActivity {
         // Refresh data when returning to this activity
         loadBorrowingHistory();
     }
+
+    @Override
+    protected void onDestroy() {
+        requestScope.cancel();
+        super.onDestroy();
+    }
+
+    // Drops results of a load that was superseded or cancelled, or that arrive after the screen is gone
+    private void runOnUiThreadIfActive(CompletableFuture<?> load, Runnable action) {
+        runOnUiThread(() -> {
+            if (requestScope.isActive() && !load.isCancelled()) {
+                action.run();
+            }
+        });
+    }
 } 
\ No newline at end of file
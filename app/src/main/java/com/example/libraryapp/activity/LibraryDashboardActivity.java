@@ -4,6 +4,7 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.text.Editable;
 import android.text.TextWatcher;
+import android.view.Choreographer;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
@@ -17,8 +18,15 @@ import androidx.core.view.GravityCompat;
 import androidx.drawerlayout.widget.DrawerLayout;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
+import com.example.libraryapp.BuildConfig;
 import com.example.libraryapp.R;
 import com.example.libraryapp.adapters.LibraryResourceAdapter;
+import com.example.libraryapp.adapters.PaginationScrollListener;
+import com.example.libraryapp.core.concurrency.AppExecutors;
+import com.example.libraryapp.data.CatalogPager;
+import com.example.libraryapp.data.CatalogSearchIndex;
+import com.example.libraryapp.data.CatalogSearchPipeline;
+import com.example.libraryapp.data.CatalogSync;
 import com.example.libraryapp.data.SupabaseClient;
 import com.example.libraryapp.models.BookDetails;
 import com.example.libraryapp.models.Borrowing;
@@ -26,6 +34,7 @@ import com.example.libraryapp.models.LibraryResource;
 import com.example.libraryapp.models.MediaDetails;
 import com.example.libraryapp.models.PeriodicalDetails;
 import com.example.libraryapp.models.ResourceCategory;
+import com.example.libraryapp.utils.DisplayDates;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.navigation.NavigationView;
@@ -33,7 +42,6 @@ import com.google.android.material.textfield.TextInputEditText;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
 
 public class LibraryDashboardActivity extends AppCompatActivity implements LibraryResourceAdapter.OnResourceClickListener {
     private RecyclerView resourcesRecyclerView;
@@ -49,8 +57,13 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
     private int userId;
     private DrawerLayout drawerLayout;
     private NavigationView navigationView;
-    private boolean useLazyLoading = true; // Flag to toggle between approaches
-    private List<LibraryResource> allResources = new ArrayList<>(); // Cache for filtering
+    private static final int CATALOG_PREFETCH_DISTANCE = 15; // Rows from the end at which the next page is requested
+    private static final int MENU_NETWORK_STATS = 1001; // Debug builds only
+    private List<LibraryResource> allResources = new ArrayList<>(); // Everything loaded so far
+    private final CatalogSearchIndex searchIndex = new CatalogSearchIndex(); // Filled off the main thread as data arrives
+    private CatalogSearchPipeline searchPipeline;
+    private CatalogPager catalogPager;
+    private CatalogSync catalogSync;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -130,9 +143,35 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
 
         // Setup RecyclerView
         adapter = new LibraryResourceAdapter(this);
-        resourcesRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        resourcesRecyclerView.setLayoutManager(layoutManager);
         resourcesRecyclerView.setAdapter(adapter);
 
+        // Load further catalog pages as the user approaches the end of the list
+        catalogPager = new CatalogPager(supabaseClient);
+        catalogSync = new CatalogSync(supabaseClient);
+        // Searches run on the CPU pool; results are applied at most once per frame
+        AppExecutors executors = AppExecutors.getInstance();
+        searchPipeline = new CatalogSearchPipeline(searchIndex, executors.cpu(), executors.scheduler(),
+            command -> runOnUiThread(() -> Choreographer.getInstance().postFrameCallback(frameTimeNanos -> command.run())),
+            CatalogSearchPipeline.DEFAULT_DEBOUNCE_MILLIS, this::showSearchResults);
+        resourcesRecyclerView.addOnScrollListener(new PaginationScrollListener(layoutManager, CATALOG_PREFETCH_DISTANCE) {
+            @Override
+            protected boolean isLoading() {
+                return catalogPager.isLoading();
+            }
+
+            @Override
+            protected boolean hasMore() {
+                return catalogPager.hasMore();
+            }
+
+            @Override
+            protected void loadMore() {
+                loadNextCatalogPage();
+            }
+        });
+
         // Setup search functionality
         searchInput.addTextChangedListener(new TextWatcher() {
             @Override
@@ -143,7 +182,7 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
 
             @Override
             public void afterTextChanged(Editable s) {
-                filterResources(s.toString());
+                searchPipeline.submit(s.toString(), currentCategory);
             }
         });
 
@@ -169,100 +208,76 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
         }
     }
 
+    // Show the first keyset page immediately, append the rest while scrolling
     private void loadAllResources() {
-        if (useLazyLoading) {
-            loadAllResourcesLazy();
-        } else {
-            loadAllResourcesWithDetails();
-        }
+        android.util.Log.d("LibraryDashboard", "Loading catalog in pages");
+        
+        catalogPager.reset();
+        catalogSync.reset();
+        searchIndex.clear();
+        allResources = new ArrayList<>();
+        adapter.setResources(new ArrayList<>());
+        updateCategoryStatus();
+        
+        loadNextCatalogPage();
     }
 
-    // New lazy loading approach - load basic resources first, then enrich on-demand
-    private void loadAllResourcesLazy() {
-        android.util.Log.d("LibraryDashboard", "Using lazy loading approach");
-        
-        CompletableFuture<List<LibraryResource>> future = supabaseClient.getAllLibraryResourcesBasic();
-        future.thenAccept(resources -> {
+    private void loadNextCatalogPage() {
+        catalogPager.loadNextPage().thenAccept(timedPage -> {
+            List<LibraryResource> page = timedPage.getValue();
+            searchIndex.index(page);
             runOnUiThread(() -> {
-                if (resources != null && !resources.isEmpty()) {
-                    android.util.Log.d("LibraryDashboard", "Loaded " + resources.size() + " basic resources");
-                    
-                    // Debug: Log first few resource IDs to verify they're being set correctly
-                    for (int i = 0; i < Math.min(3, resources.size()); i++) {
-                        LibraryResource resource = resources.get(i);
-                        android.util.Log.d("LibraryDashboard", "Resource " + i + ": ID=" + resource.getResourceId() + 
-                            ", Title=" + resource.getTitle() + ", Category=" + resource.getCategory());
+                if (page.isEmpty()) {
+                    if (allResources.isEmpty() && !catalogPager.hasMore()) {
+                        Toast.makeText(this, "No resources found", Toast.LENGTH_SHORT).show();
                     }
-                    
-                    // Cache all resources for filtering
-                    allResources = new ArrayList<>(resources);
-                    
-                    // Set basic resources first for immediate display
-                    adapter.setResources(resources);
+                    return;
+                }
+                
+                android.util.Log.d("LibraryDashboard", "Loaded page of " + page.size() + " resources");
+                catalogSync.mergeLoaded(page, timedPage.getServerTime());
+                allResources.addAll(page);
+                
+                String searchQuery = searchInput.getText() != null ? searchInput.getText().toString() : "";
+                if (currentCategory.equals("All") && searchQuery.trim().isEmpty()) {
+                    adapter.appendResources(page);
                     updateCategoryStatus();
-                    
-                    // Then enrich with details asynchronously
-                    enrichResourcesInBackground(resources);
                 } else {
-                    android.util.Log.w("LibraryDashboard", "No resources found or null response");
-                    Toast.makeText(this, "No resources found", Toast.LENGTH_SHORT).show();
+                    // showSearchResults pulls more pages if the filtered list is too short
+                    filterResources(searchQuery);
                 }
             });
         }).exceptionally(e -> {
             runOnUiThread(() -> {
-                android.util.Log.e("LibraryDashboard", "Error loading basic resources: " + e.getMessage(), e);
+                android.util.Log.e("LibraryDashboard", "Error loading catalog page: " + e.getMessage(), e);
                 Toast.makeText(this, "Error loading resources: " + e.getMessage(), Toast.LENGTH_SHORT).show();
             });
             return null;
         });
     }
 
-    // Original approach - load everything with details in one go
-    private void loadAllResourcesWithDetails() {
-        android.util.Log.d("LibraryDashboard", "Using original approach with details");
+    // Refresh by delta: fetch only rows updated since the last sync and merge them into the cache
+    private void syncChangedResources() {
+        int loadedUpTo = catalogPager.hasMore() ? catalogPager.getLastResourceId() : Integer.MAX_VALUE;
         
-        CompletableFuture<List<LibraryResource>> future = supabaseClient.getAllLibraryResources();
-        future.thenAccept(resources -> {
+        catalogSync.sync(loadedUpTo).thenAccept(changed -> {
+            searchIndex.index(changed);
             runOnUiThread(() -> {
-                if (resources != null) {
-                    android.util.Log.d("LibraryDashboard", "Loaded " + resources.size() + " resources with details");
-                    
-                    // Cache all resources for filtering
-                    allResources = new ArrayList<>(resources);
-                    
-                    adapter.setResources(resources);
-                    updateCategoryStatus();
-                } else {
-                    Toast.makeText(this, "Failed to load resources", Toast.LENGTH_SHORT).show();
+                android.util.Log.d("LibraryDashboard", "Delta sync merged " + changed.size() + " resources");
+                if (changed.isEmpty()) {
+                    Toast.makeText(this, "Catalog is up to date", Toast.LENGTH_SHORT).show();
+                    return;
                 }
+                
+                allResources = catalogSync.snapshot();
+                filterResources(searchInput.getText() != null ? searchInput.getText().toString() : "");
+                Toast.makeText(this, changed.size() + " resources updated", Toast.LENGTH_SHORT).show();
             });
         }).exceptionally(e -> {
             runOnUiThread(() -> {
-                android.util.Log.e("LibraryDashboard", "Error: " + e.getMessage(), e);
-                Toast.makeText(this, "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-            });
-            return null;
-        });
-    }
-
-    // Enrich resources with details in the background
-    private void enrichResourcesInBackground(List<LibraryResource> resources) {
-        CompletableFuture<List<LibraryResource>> enrichFuture = 
-            supabaseClient.enrichResourcesWithDetailsOnDemand(resources);
-        
-        enrichFuture.thenAccept(enrichedResources -> {
-            runOnUiThread(() -> {
-                android.util.Log.d("LibraryDashboard", "Successfully enriched resources with details");
-                
-                // Update cached resources
-                allResources = new ArrayList<>(enrichedResources);
-                
-                // Apply current filters to the enriched data
-                filterResources(searchInput.getText().toString());
+                android.util.Log.e("LibraryDashboard", "Delta sync failed: " + e.getMessage(), e);
+                Toast.makeText(this, "Error refreshing resources: " + e.getMessage(), Toast.LENGTH_SHORT).show();
             });
-        }).exceptionally(e -> {
-            android.util.Log.w("LibraryDashboard", "Failed to enrich resources with details: " + e.getMessage(), e);
-            // Don't show error to user since basic resources are already displayed
             return null;
         });
     }
@@ -297,32 +312,24 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
         Toast.makeText(this, "Advanced filter functionality coming soon", Toast.LENGTH_SHORT).show();
     }
 
+    // Category and text filter through the trigram index; matches title, accession number, author, ISBN and ISSN.
+    // Runs in the background without debouncing; results arrive in showSearchResults
     private void filterResources(String searchQuery) {
-        List<LibraryResource> filteredResources = new ArrayList<>(allResources);
-        
-        // Apply category filter
-        if (!currentCategory.equals("All")) {
-            filteredResources = filteredResources.stream()
-                .filter(resource -> resource.getCategory() != null && 
-                        resource.getCategory().equalsIgnoreCase(currentCategory))
-                .collect(Collectors.toList());
-        }
-        
-        // Apply search filter
-        if (searchQuery != null && !searchQuery.trim().isEmpty()) {
-            String query = searchQuery.toLowerCase().trim();
-            filteredResources = filteredResources.stream()
-                .filter(resource -> resource.getTitle() != null && 
-                        resource.getTitle().toLowerCase().contains(query))
-                .collect(Collectors.toList());
-        }
-        
-        adapter.setResources(filteredResources);
+        searchPipeline.submitNow(searchQuery, currentCategory);
+    }
+
+    private void showSearchResults(List<LibraryResource> resources) {
+        adapter.setResources(resources);
         updateCategoryStatus();
+        // A narrow filter may not fill the screen, so keep pulling pages until it does
+        if (adapter.getResourceCount() < CATALOG_PREFETCH_DISTANCE
+                && catalogPager.hasMore() && !catalogPager.isLoading()) {
+            loadNextCatalogPage();
+        }
     }
 
     private void updateCategoryStatus() {
-        int totalCount = adapter.getItemCount();
+        int totalCount = adapter.getResourceCount();
         String categoryText;
         
         if (currentCategory.equals("All")) {
@@ -410,8 +417,7 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
             if (book.getIsbn() != null) details.append("• ISBN: ").append(book.getIsbn()).append("\n");
             if (book.getPublicationDate() != null) {
                 details.append("• Publication Date: ").append(
-                    new java.text.SimpleDateFormat("MMM dd, yyyy", java.util.Locale.getDefault())
-                        .format(book.getPublicationDate())).append("\n");
+                    DisplayDates.calendarDay(book.getPublicationDate())).append("\n");
             }
             
         } else if ("periodical".equals(category) && resource.getPeriodicalDetails() != null) {
@@ -422,8 +428,7 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
             if (periodical.getIssn() != null) details.append("• ISSN: ").append(periodical.getIssn()).append("\n");
             if (periodical.getPublicationDate() != null) {
                 details.append("• Publication Date: ").append(
-                    new java.text.SimpleDateFormat("MMM dd, yyyy", java.util.Locale.getDefault())
-                        .format(periodical.getPublicationDate())).append("\n");
+                    DisplayDates.calendarDay(periodical.getPublicationDate())).append("\n");
             }
             
         } else if ("media".equals(category) && resource.getMediaDetails() != null) {
@@ -441,8 +446,7 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
         // Add creation date if available
         if (resource.getCreatedAt() != null) {
             details.append("\n📅 Added to library: ").append(
-                new java.text.SimpleDateFormat("MMM dd, yyyy", java.util.Locale.getDefault())
-                    .format(resource.getCreatedAt()));
+                DisplayDates.day(resource.getCreatedAt()));
         }
         
         detailsText.setText(details.toString());
@@ -528,13 +532,14 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
         confirmBuilder.setTitle("Confirm Request")
                      .setMessage("Do you want to request to borrow \"" + resource.getTitle() + "\"?")
                      .setPositiveButton("Yes, Request", (dialog, which) -> {
-                         createBorrowingRequest(resource);
+                         // One key per confirmed request; retries reuse it so they cannot create duplicates
+                         createBorrowingRequest(resource, java.util.UUID.randomUUID().toString());
                      })
                      .setNegativeButton("Cancel", null)
                      .show();
     }
 
-    private void createBorrowingRequest(LibraryResource resource) {
+    private void createBorrowingRequest(LibraryResource resource, String idempotencyKey) {
         // Show loading dialog
         AlertDialog loadingDialog = new AlertDialog.Builder(this)
             .setTitle("Processing Request")
@@ -544,7 +549,7 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
         loadingDialog.show();
         
         // Create the borrowing request in the database
-        CompletableFuture<Borrowing> borrowingFuture = supabaseClient.createBorrowingRequest(userId, resource.getResourceId());
+        CompletableFuture<Borrowing> borrowingFuture = supabaseClient.createBorrowingRequest(userId, resource.getResourceId(), idempotencyKey);
         
         borrowingFuture.thenAccept(borrowing -> {
             runOnUiThread(() -> {
@@ -580,7 +585,7 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
                            .setMessage("Failed to create borrowing request: " + errorMessage)
                            .setPositiveButton("OK", null)
                            .setNeutralButton("Retry", (dialog, which) -> {
-                               createBorrowingRequest(resource);
+                               createBorrowingRequest(resource, idempotencyKey);
                            })
                            .show();
                 }
@@ -595,8 +600,7 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
         // Format the due date
         String dueDateStr = "Not set";
         if (borrowing.getDueDate() != null) {
-            dueDateStr = new java.text.SimpleDateFormat("MMM dd, yyyy", java.util.Locale.getDefault())
-                .format(borrowing.getDueDate());
+            dueDateStr = DisplayDates.day(borrowing.getDueDate());
         }
         
         String message = "Your borrowing request has been submitted successfully!\n\n" +
@@ -626,6 +630,9 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_library_dashboard, menu);
+        if (BuildConfig.DEBUG) {
+            menu.add(Menu.NONE, MENU_NETWORK_STATS, Menu.NONE, "Network stats");
+        }
         return true;
     }
 
@@ -633,13 +640,26 @@ public class LibraryDashboardActivity extends AppCompatActivity implements Libra
     public boolean onOptionsItemSelected(MenuItem item) {
         int id = item.getItemId();
         if (id == R.id.action_refresh) {
+            if (!allResources.isEmpty()) {
+                syncChangedResources();
+            } else {
                 loadAllResources();
+            }
             loadPendingRequestsCount(); // Also refresh pending count
             return true;
+        } else if (id == MENU_NETWORK_STATS) {
+            startActivity(new Intent(this, NetworkStatsActivity.class));
+            return true;
         }
         return super.onOptionsItemSelected(item);
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        searchPipeline.close();
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
@@ -0,0 +1,95 @@
+package com.example.libraryapp.activity;
+
+import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+import com.example.libraryapp.R;
+import com.example.libraryapp.core.concurrency.AppExecutors;
+import com.example.libraryapp.core.concurrency.PoolStats;
+import com.example.libraryapp.data.EndpointStats;
+import com.example.libraryapp.data.SupabaseClient;
+import java.util.List;
+
+/**
+ * Debug-only screen listing per-endpoint network timings, thread pool load and request
+ * de-duplication. Reached from the dashboard menu in debug builds.
+ */
+public class NetworkStatsActivity extends AppCompatActivity {
+    private static final int MENU_REFRESH = 1;
+    private static final int MENU_RESET = 2;
+
+    private SupabaseClient supabaseClient;
+    private TextView statsText;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_network_stats);
+
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        if (getSupportActionBar() != null) {
+            getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+            getSupportActionBar().setTitle("Network Stats");
+        }
+
+        supabaseClient = SupabaseClient.getInstance(this);
+        statsText = findViewById(R.id.statsText);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        showStats();
+    }
+
+    private void showStats() {
+        StringBuilder text = new StringBuilder();
+
+        List<EndpointStats> endpoints = supabaseClient.getNetworkMetrics().snapshot();
+        text.append("ENDPOINTS\n");
+        if (endpoints.isEmpty()) {
+            text.append("No requests yet\n");
+        }
+        for (EndpointStats stats : endpoints) {
+            text.append(stats.format()).append("\n\n");
+        }
+
+        text.append("\nTHREAD POOLS\n");
+        for (PoolStats pool : AppExecutors.getInstance().snapshot()) {
+            text.append(pool).append('\n');
+        }
+
+        text.append("\nSINGLE FLIGHT\n")
+            .append("Requests joined in flight: ").append(supabaseClient.getSingleFlightHitCount()).append('\n');
+
+        statsText.setText(text);
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        menu.add(Menu.NONE, MENU_REFRESH, Menu.NONE, "Refresh");
+        menu.add(Menu.NONE, MENU_RESET, Menu.NONE, "Reset");
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        int id = item.getItemId();
+        if (id == android.R.id.home) {
+            finish();
+            return true;
+        } else if (id == MENU_REFRESH) {
+            showStats();
+            return true;
+        } else if (id == MENU_RESET) {
+            supabaseClient.getNetworkMetrics().reset();
+            showStats();
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+}
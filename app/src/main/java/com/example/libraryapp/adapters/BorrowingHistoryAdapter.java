@@ -16,14 +16,12 @@ import com.example.libraryapp.models.Borrowing;
 import com.example.libraryapp.models.BookDetails;
 import com.example.libraryapp.models.MediaDetails;
 import com.example.libraryapp.models.PeriodicalDetails;
-import java.text.SimpleDateFormat;
+import com.example.libraryapp.utils.DisplayDates;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 
 public class BorrowingHistoryAdapter extends RecyclerView.Adapter<BorrowingHistoryAdapter.BorrowingViewHolder> {
     private List<Borrowing> borrowings = new ArrayList<>();
-    private SimpleDateFormat dateFormat = new SimpleDateFormat("MMM dd, yyyy", Locale.getDefault());
 
     @NonNull
     @Override
@@ -205,7 +203,7 @@ public class BorrowingHistoryAdapter extends RecyclerView.Adapter<BorrowingHisto
         private void formatDates(Borrowing borrowing) {
             // Borrow/Request date
             if (borrowing.getBorrowDate() != null) {
-                borrowDateText.setText("Requested: " + dateFormat.format(borrowing.getBorrowDate()));
+                borrowDateText.setText("Requested: " + DisplayDates.day(borrowing.getBorrowDate()));
                 borrowDateText.setVisibility(View.VISIBLE);
             } else {
                 borrowDateText.setText("Request Date: N/A");
@@ -214,7 +212,7 @@ public class BorrowingHistoryAdapter extends RecyclerView.Adapter<BorrowingHisto
             
             // Due date
             if (borrowing.getDueDate() != null) {
-                dueDateText.setText("Due: " + dateFormat.format(borrowing.getDueDate()));
+                dueDateText.setText("Due: " + DisplayDates.day(borrowing.getDueDate()));
                 dueDateText.setVisibility(View.VISIBLE);
                 
                 // Check if overdue
@@ -229,7 +227,7 @@ public class BorrowingHistoryAdapter extends RecyclerView.Adapter<BorrowingHisto
             
             // Return date
             if (borrowing.getReturnDate() != null) {
-                returnDateText.setText("Returned: " + dateFormat.format(borrowing.getReturnDate()));
+                returnDateText.setText("Returned: " + DisplayDates.day(borrowing.getReturnDate()));
                 returnDateText.setVisibility(View.VISIBLE);
                 returnDateText.setTextColor(ContextCompat.getColor(itemView.getContext(), android.R.color.holo_green_dark));
             } else {
@@ -6,28 +6,109 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.libraryapp.R;
+import com.example.libraryapp.core.concurrency.AppExecutors;
 import com.example.libraryapp.models.LibraryResource;
 import com.example.libraryapp.models.BookDetails;
 import com.example.libraryapp.models.PeriodicalDetails;
 import com.example.libraryapp.models.MediaDetails;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
+/**
+ * Lists are diffed on the CPU pool with AsyncListDiffer, keyed on resource id, so a new
+ * search result, enrichment pass or refresh only rebinds the rows that changed.
+ */
 public class LibraryResourceAdapter extends RecyclerView.Adapter<LibraryResourceAdapter.ResourceViewHolder> {
-    private List<LibraryResource> resources = new ArrayList<>();
+    private final AsyncListDiffer<Row> differ;
+    private List<Row> submitted = new ArrayList<>(); // Latest list handed to the differ, possibly not yet shown
     private OnResourceClickListener listener;
 
+    /**
+     * What a row shows, captured when the list is submitted. Enrichment fills in details on
+     * the same LibraryResource objects, so comparing the resources themselves would miss it.
+     */
+    private static final class Row {
+        final LibraryResource resource;
+        final String title;
+        final String category;
+        final String status;
+        final String coverImage;
+        final BookDetails book;
+        final PeriodicalDetails periodical;
+        final MediaDetails media;
+
+        Row(LibraryResource resource) {
+            this.resource = resource;
+            this.title = resource.getTitle();
+            this.category = resource.getCategory();
+            this.status = resource.getStatus();
+            this.coverImage = resource.getCoverImage();
+            this.book = resource.getBookDetails();
+            this.periodical = resource.getPeriodicalDetails();
+            this.media = resource.getMediaDetails();
+        }
+    }
+
+    // Change payloads, OR-ed together; a row whose title or cover changed gets no payload and a full rebind
+    private static final int PAYLOAD_DETAILS = 1; // Category details arrived or changed: categoryText only
+    private static final int PAYLOAD_STATUS = 2;  // Borrowed/available and so on: statusText only
+
+    private static final DiffUtil.ItemCallback<Row> ROW_DIFF = new DiffUtil.ItemCallback<Row>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Row oldRow, @NonNull Row newRow) {
+            return oldRow.resource.getResourceId() == newRow.resource.getResourceId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Row oldRow, @NonNull Row newRow) {
+            // Detail objects are replaced, never edited, so identity is enough for them
+            return Objects.equals(oldRow.title, newRow.title)
+                && Objects.equals(oldRow.category, newRow.category)
+                && Objects.equals(oldRow.status, newRow.status)
+                && Objects.equals(oldRow.coverImage, newRow.coverImage)
+                && oldRow.book == newRow.book
+                && oldRow.periodical == newRow.periodical
+                && oldRow.media == newRow.media;
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Row oldRow, @NonNull Row newRow) {
+            if (!Objects.equals(oldRow.title, newRow.title) || !Objects.equals(oldRow.coverImage, newRow.coverImage)) {
+                return null;
+            }
+            int changes = 0;
+            if (!Objects.equals(oldRow.category, newRow.category) || oldRow.book != newRow.book
+                    || oldRow.periodical != newRow.periodical || oldRow.media != newRow.media) {
+                changes |= PAYLOAD_DETAILS;
+            }
+            if (!Objects.equals(oldRow.status, newRow.status)) {
+                changes |= PAYLOAD_STATUS;
+            }
+            return changes;
+        }
+    };
+
     public interface OnResourceClickListener {
         void onResourceClick(LibraryResource resource);
     }
 
     public LibraryResourceAdapter(OnResourceClickListener listener) {
         this.listener = listener;
+        this.differ = new AsyncListDiffer<>(new AdapterListUpdateCallback(this),
+            new AsyncDifferConfig.Builder<>(ROW_DIFF)
+                .setBackgroundThreadExecutor(AppExecutors.getInstance().cpu())
+                .build());
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -40,18 +121,69 @@ public class LibraryResourceAdapter extends RecyclerView.Adapter<LibraryResource
 
     @Override
     public void onBindViewHolder(@NonNull ResourceViewHolder holder, int position) {
-        LibraryResource resource = resources.get(position);
-        holder.bind(resource);
+        holder.bind(differ.getCurrentList().get(position).resource);
+    }
+
+    // Payload updates touch only the affected text, leaving the cover request and layout alone
+    @Override
+    public void onBindViewHolder(@NonNull ResourceViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        int changes = 0;
+        for (Object payload : payloads) {
+            changes |= (Integer) payload;
+        }
+        LibraryResource resource = differ.getCurrentList().get(position).resource;
+        if ((changes & PAYLOAD_DETAILS) != 0) {
+            holder.bindDetails(resource);
+        }
+        if ((changes & PAYLOAD_STATUS) != 0) {
+            holder.bindStatus(resource);
+        }
     }
 
     @Override
     public int getItemCount() {
-        return resources.size();
+        return differ.getCurrentList().size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return differ.getCurrentList().get(position).resource.getResourceId();
+    }
+
+    // Rows shown once the pending diff lands; getItemCount() still reports the list on screen
+    public int getResourceCount() {
+        return submitted.size();
     }
 
     public void setResources(List<LibraryResource> resources) {
-        this.resources = resources;
-        notifyDataSetChanged();
+        List<Row> rows = new ArrayList<>(resources.size());
+        for (LibraryResource resource : resources) {
+            rows.add(new Row(resource));
+        }
+        submit(rows);
+    }
+
+    // Append a freshly loaded catalog page; the diff only inserts the new rows
+    public void appendResources(List<LibraryResource> page) {
+        if (page == null || page.isEmpty()) {
+            return;
+        }
+        // Build on the latest submitted list, which may not have reached the screen yet
+        List<Row> rows = new ArrayList<>(submitted.size() + page.size());
+        rows.addAll(submitted);
+        for (LibraryResource resource : page) {
+            rows.add(new Row(resource));
+        }
+        submit(rows);
+    }
+
+    private void submit(List<Row> rows) {
+        submitted = rows;
+        differ.submitList(rows);
     }
 
     class ResourceViewHolder extends RecyclerView.ViewHolder {
@@ -70,7 +202,7 @@ public class LibraryResourceAdapter extends RecyclerView.Adapter<LibraryResource
             itemView.setOnClickListener(v -> {
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION) {
-                    listener.onResourceClick(resources.get(position));
+                    listener.onResourceClick(differ.getCurrentList().get(position).resource);
                 }
             });
         }
@@ -87,11 +219,39 @@ public class LibraryResourceAdapter extends RecyclerView.Adapter<LibraryResource
                 return;
             }
             
-            String category = resource.getCategory().trim();
-            android.util.Log.d("LibraryResourceAdapter", "Binding resource: " + resource.getTitle() + " with category: '" + category + "'");
+            android.util.Log.d("LibraryResourceAdapter", "Binding resource: " + resource.getTitle() + " with category: '" + resource.getCategory().trim() + "'");
             
             titleText.setText(resource.getTitle());
+            bindStatus(resource);
+            bindDetails(resource);
+
+            // Load cover image using Glide with error handling
+            RequestOptions requestOptions = new RequestOptions()
+                .placeholder(R.drawable.ic_no_photo)
+                .error(R.drawable.ic_no_photo)
+                .centerCrop();
+
+            if (resource.getCoverImage() != null && !resource.getCoverImage().isEmpty()) {
+                Glide.with(coverImage.getContext())
+                    .load(resource.getCoverImage())
+                    .apply(requestOptions)
+                    .transition(DrawableTransitionOptions.withCrossFade())
+                    .into(coverImage);
+            } else {
+                coverImage.setImageResource(R.drawable.ic_no_photo);
+            }
+        }
+
+        void bindStatus(LibraryResource resource) {
             statusText.setText(resource.getStatus());
+        }
+
+        // Category line: the category plus whatever details have loaded so far
+        void bindDetails(LibraryResource resource) {
+            if (resource.getCategory() == null || resource.getCategory().isEmpty()) {
+                return;
+            }
+            String category = resource.getCategory().trim();
 
             // Build category-specific details
             StringBuilder detailsBuilder = new StringBuilder();
@@ -161,22 +321,6 @@ public class LibraryResourceAdapter extends RecyclerView.Adapter<LibraryResource
             }
             
             categoryText.setText(detailsBuilder.toString());
-
-            // Load cover image using Glide with error handling
-            RequestOptions requestOptions = new RequestOptions()
-                .placeholder(R.drawable.ic_no_photo)
-                .error(R.drawable.ic_no_photo)
-                .centerCrop();
-
-            if (resource.getCoverImage() != null && !resource.getCoverImage().isEmpty()) {
-                Glide.with(coverImage.getContext())
-                    .load(resource.getCoverImage())
-                    .apply(requestOptions)
-                    .transition(DrawableTransitionOptions.withCrossFade())
-                    .into(coverImage);
-            } else {
-                coverImage.setImageResource(R.drawable.ic_no_photo);
-            }
         }
     }
 } 
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.example.libraryapp.adapters;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Requests the next page once the last visible row comes within prefetchDistance
+ * rows of the end of the list, so pages arrive before the user reaches the bottom.
+ */
+public abstract class PaginationScrollListener extends RecyclerView.OnScrollListener {
+    private final LinearLayoutManager layoutManager;
+    private final int prefetchDistance;
+
+    public PaginationScrollListener(LinearLayoutManager layoutManager, int prefetchDistance) {
+        this.layoutManager = layoutManager;
+        this.prefetchDistance = prefetchDistance;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (dy <= 0 || isLoading() || !hasMore()) {
+            return;
+        }
+
+        int lastVisible = layoutManager.findLastVisibleItemPosition();
+        int itemCount = layoutManager.getItemCount();
+        if (lastVisible != RecyclerView.NO_POSITION && lastVisible + prefetchDistance >= itemCount) {
+            loadMore();
+        }
+    }
+
+    protected abstract boolean isLoading();
+
+    protected abstract boolean hasMore();
+
+    protected abstract void loadMore();
+}
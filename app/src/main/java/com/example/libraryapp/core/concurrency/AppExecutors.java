@@ -0,0 +1,57 @@
+package com.example.libraryapp.core.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+/**
+ * Process-wide executors: a bounded pool for CPU-heavy work (JSON parsing, BCrypt) and a timer.
+ * HTTP calls run on OkHttp's own dispatcher, so there is no pool here for blocking network I/O.
+ * Activities hand results to the UI with runOnUiThread.
+ *
+ * Never block on a future from inside the pool that completes it: compose with thenCompose instead,
+ * otherwise a handful of concurrent callers can occupy every worker and deadlock the pool.
+ */
+public class AppExecutors {
+    private static AppExecutors instance;
+
+    private final InstrumentedThreadPool cpu;
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    private AppExecutors() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        cpu = new InstrumentedThreadPool("app-cpu", Math.max(2, cores - 1));
+        scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "app-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Timers are usually cancelled before they fire; do not keep them queued until their deadline
+        scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    // Parsing, hashing and other CPU-bound work
+    public Executor cpu() {
+        return cpu;
+    }
+
+    // Delays and timeouts only; scheduled tasks must hand real work to another executor
+    public ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    public List<PoolStats> snapshot() {
+        List<PoolStats> stats = new ArrayList<>();
+        stats.add(cpu.snapshot());
+        return stats;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.libraryapp.core.concurrency;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Combinators missing from CompletableFuture.
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Completes when all futures succeed, or exceptionally as soon as the first one fails,
+     * unlike CompletableFuture.allOf which waits for every future before reporting. The
+     * remaining futures are cancelled on failure; cancelling a dependent future does not
+     * abort work other callers are sharing.
+     */
+    public static CompletableFuture<Void> allFailFast(CompletableFuture<?>... futures) {
+        CompletableFuture<Void> result = CompletableFuture.allOf(futures);
+        CompletableFuture<Void> failFast = new CompletableFuture<>();
+
+        for (CompletableFuture<?> future : futures) {
+            future.whenComplete((value, error) -> {
+                if (error != null && failFast.completeExceptionally(error)) {
+                    for (CompletableFuture<?> other : futures) {
+                        if (other != future) {
+                            other.cancel(false);
+                        }
+                    }
+                }
+            });
+        }
+        result.whenComplete((value, error) -> {
+            if (error == null) {
+                failFast.complete(null);
+            }
+        });
+        return failFast;
+    }
+}
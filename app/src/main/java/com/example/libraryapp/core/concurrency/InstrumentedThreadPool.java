@@ -0,0 +1,87 @@
+package com.example.libraryapp.core.concurrency;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size thread pool that records how long tasks sit in the queue before a worker picks them up.
+ * A growing queue wait is the first sign that a pool is saturated by blocked tasks.
+ */
+public class InstrumentedThreadPool extends ThreadPoolExecutor {
+    private static final long SLOW_WAIT_MILLIS = 500;
+
+    private final String name;
+    private final AtomicLong startedTasks = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public InstrumentedThreadPool(String name, int threads) {
+        super(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory(name));
+        this.name = name;
+        // Let idle workers die so a quiet app does not pin threads
+        allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        super.execute(new TimedRunnable(command, System.nanoTime()));
+    }
+
+    public PoolStats snapshot() {
+        long started = startedTasks.get();
+        long averageWait = started == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get() / started);
+        return new PoolStats(name, getPoolSize(), getMaximumPoolSize(), getActiveCount(), getQueue().size(),
+                getCompletedTaskCount(), averageWait, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+    }
+
+    private void recordWait(long waitNanos) {
+        startedTasks.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        long currentMax;
+        do {
+            currentMax = maxWaitNanos.get();
+        } while (waitNanos > currentMax && !maxWaitNanos.compareAndSet(currentMax, waitNanos));
+
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        if (waitMillis >= SLOW_WAIT_MILLIS) {
+            android.util.Log.w("InstrumentedThreadPool", "Task waited " + waitMillis + "ms in " + name
+                    + " queue (queued=" + getQueue().size() + ", active=" + getActiveCount() + ")");
+        }
+    }
+
+    private class TimedRunnable implements Runnable {
+        private final Runnable delegate;
+        private final long enqueuedAtNanos;
+
+        TimedRunnable(Runnable delegate, long enqueuedAtNanos) {
+            this.delegate = delegate;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+        }
+
+        @Override
+        public void run() {
+            recordWait(System.nanoTime() - enqueuedAtNanos);
+            delegate.run();
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
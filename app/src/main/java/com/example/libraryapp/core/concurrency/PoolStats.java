@@ -0,0 +1,44 @@
+package com.example.libraryapp.core.concurrency;
+
+import java.util.Locale;
+
+/**
+ * Immutable snapshot of an {@link InstrumentedThreadPool}'s load at one point in time.
+ */
+public class PoolStats {
+    private final String name;
+    private final int poolSize;
+    private final int maxPoolSize;
+    private final int activeThreads;
+    private final int queueDepth;
+    private final long completedTasks;
+    private final long averageWaitMillis;
+    private final long maxWaitMillis;
+
+    PoolStats(String name, int poolSize, int maxPoolSize, int activeThreads, int queueDepth,
+              long completedTasks, long averageWaitMillis, long maxWaitMillis) {
+        this.name = name;
+        this.poolSize = poolSize;
+        this.maxPoolSize = maxPoolSize;
+        this.activeThreads = activeThreads;
+        this.queueDepth = queueDepth;
+        this.completedTasks = completedTasks;
+        this.averageWaitMillis = averageWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public String getName() { return name; }
+    public int getPoolSize() { return poolSize; }
+    public int getMaxPoolSize() { return maxPoolSize; }
+    public int getActiveThreads() { return activeThreads; }
+    public int getQueueDepth() { return queueDepth; }
+    public long getCompletedTasks() { return completedTasks; }
+    public long getAverageWaitMillis() { return averageWaitMillis; }
+    public long getMaxWaitMillis() { return maxWaitMillis; }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s{threads=%d/%d, active=%d, queued=%d, completed=%d, avgWait=%dms, maxWait=%dms}",
+                name, poolSize, maxPoolSize, activeThreads, queueDepth, completedTasks, averageWaitMillis, maxWaitMillis);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.libraryapp.core.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Group of futures cancelled together. CompletableFuture does not pass cancellation
+ * upstream, so a pipeline built with thenCompose keeps its network calls running after the
+ * caller cancels the result; tracking each stage in a scope and binding the result to it
+ * closes that gap.
+ *
+ * Activities hold one for their lifetime and cancel it in onDestroy; SupabaseClient uses
+ * short-lived ones inside multi-request methods.
+ */
+public class RequestScope {
+    private final List<CompletableFuture<?>> tracked = new ArrayList<>();
+    private boolean cancelled;
+
+    /**
+     * Cancels the future when the scope is cancelled, or at once if it already has been.
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        synchronized (this) {
+            if (!cancelled) {
+                tracked.add(future);
+                future.whenComplete((result, error) -> untrack(future));
+                return future;
+            }
+        }
+        future.cancel(false);
+        return future;
+    }
+
+    /**
+     * Cancels the whole scope when result is cancelled, and returns result.
+     */
+    public <T> CompletableFuture<T> bind(CompletableFuture<T> result) {
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                cancel();
+            }
+        });
+        return result;
+    }
+
+    public void cancel() {
+        List<CompletableFuture<?>> toCancel;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            toCancel = new ArrayList<>(tracked);
+            tracked.clear();
+        }
+        for (CompletableFuture<?> future : toCancel) {
+            future.cancel(false);
+        }
+    }
+
+    public synchronized boolean isActive() {
+        return !cancelled;
+    }
+
+    private synchronized void untrack(CompletableFuture<?> future) {
+        tracked.remove(future);
+    }
+}
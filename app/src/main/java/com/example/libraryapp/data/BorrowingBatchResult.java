@@ -0,0 +1,68 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.models.Borrowing;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-item outcome of a bulk approve or reject. Ids keep the order they were passed in.
+ */
+public class BorrowingBatchResult {
+
+    public enum Outcome {
+        UPDATED,     // Was pending and is now approved or rejected
+        NOT_PENDING, // Missing, or already processed by someone else
+        FAILED       // The batch it was in failed; see getError
+    }
+
+    private final Map<Integer, Outcome> outcomes = new LinkedHashMap<>();
+    private final Map<Integer, Borrowing> updated = new LinkedHashMap<>();
+    private final Map<Integer, String> errors = new LinkedHashMap<>();
+
+    void markUpdated(Borrowing borrowing) {
+        outcomes.put(borrowing.getBorrowingId(), Outcome.UPDATED);
+        updated.put(borrowing.getBorrowingId(), borrowing);
+    }
+
+    void markNotPending(int borrowingId) {
+        outcomes.put(borrowingId, Outcome.NOT_PENDING);
+    }
+
+    void markFailed(int borrowingId, String error) {
+        outcomes.put(borrowingId, Outcome.FAILED);
+        errors.put(borrowingId, error);
+    }
+
+    public Outcome getOutcome(int borrowingId) {
+        return outcomes.get(borrowingId);
+    }
+
+    public Map<Integer, Outcome> getOutcomes() {
+        return Collections.unmodifiableMap(outcomes);
+    }
+
+    public List<Borrowing> getUpdated() {
+        return new ArrayList<>(updated.values());
+    }
+
+    public String getError(int borrowingId) {
+        return errors.get(borrowingId);
+    }
+
+    public int count(Outcome outcome) {
+        int count = 0;
+        for (Outcome value : outcomes.values()) {
+            if (value == outcome) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean isFullySuccessful() {
+        return count(Outcome.UPDATED) == outcomes.size();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.libraryapp.data;
+
+/**
+ * A borrowing state transition matched no row: the borrowing does not exist or is no longer
+ * in the status the caller expected, usually because another librarian processed it first.
+ */
+public class BorrowingConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final int borrowingId;
+    private final String expectedStatus;
+
+    public BorrowingConflictException(int borrowingId, String expectedStatus) {
+        super("This borrowing request has already been processed");
+        this.borrowingId = borrowingId;
+        this.expectedStatus = expectedStatus;
+    }
+
+    public int getBorrowingId() {
+        return borrowingId;
+    }
+
+    public String getExpectedStatus() {
+        return expectedStatus;
+    }
+}
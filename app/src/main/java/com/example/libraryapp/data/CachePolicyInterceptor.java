@@ -0,0 +1,52 @@
+package com.example.libraryapp.data;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Network interceptor that applies per-endpoint freshness to PostgREST GET responses,
+ * which arrive without cache headers of their own. Catalog tables become cacheable for
+ * a short window; anything holding user data is marked no-store so it never hits disk.
+ * Catalog responses carry an ETag (see the catalog_etag migration), so a stale entry is
+ * revalidated and an unchanged catalog comes back as a 304 without a body.
+ */
+public class CachePolicyInterceptor implements Interceptor {
+    private final Map<String, Integer> maxAgeSecondsByTable = new LinkedHashMap<>();
+
+    public CachePolicyInterceptor() {
+        // Catalog rows change when items are borrowed or returned, details almost never
+        maxAgeSecondsByTable.put("library_resources", 60);
+        maxAgeSecondsByTable.put("books", 300);
+        maxAgeSecondsByTable.put("periodicals", 300);
+        maxAgeSecondsByTable.put("media_resources", 300);
+        // Search results are catalog rows too; evicted with them
+        maxAgeSecondsByTable.put("rpc/search_library_resources", 60);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+
+        // A 304 gets the policy too: its headers replace the stored ones
+        boolean notModified = response.code() == HttpURLConnection.HTTP_NOT_MODIFIED;
+        if (!"GET".equals(request.method()) || !(response.isSuccessful() || notModified)) {
+            return response;
+        }
+
+        Integer maxAge = maxAgeSecondsByTable.get(PostgrestEndpoints.endpointOf(request));
+        String cacheControl = maxAge != null
+            ? "private, max-age=" + maxAge
+            : "no-store"; // users, borrowings and anything else user-specific
+
+        return response.newBuilder()
+            .removeHeader("Pragma")
+            .header("Cache-Control", cacheControl)
+            .build();
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.libraryapp.data;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Bridges OkHttp's {@link Call#enqueue} callbacks to {@link CompletableFuture}s, so a request
+ * only occupies an OkHttp dispatcher slot while it is in flight instead of pinning one of our threads.
+ */
+public final class CallFutures {
+
+    /**
+     * Turns a response into a result. Runs on the OkHttp callback thread; the response is closed afterwards.
+     */
+    public interface ResponseHandler<T> {
+        T handle(Response response) throws IOException;
+    }
+
+    private CallFutures() {}
+
+    /**
+     * Cancelling the returned future cancels the call; if the response is already being parsed,
+     * the handler's next read fails and its result is dropped.
+     */
+    public static <T> CompletableFuture<T> enqueue(OkHttpClient client, Request request, ResponseHandler<T> handler) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Call call = client.newCall(request);
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(new RuntimeException("Network error: " + e.getMessage(), e));
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (Response r = response) {
+                    if (future.isDone()) {
+                        return; // Cancelled while the headers were arriving
+                    }
+                    future.complete(handler.handle(r));
+                } catch (IOException e) {
+                    future.completeExceptionally(new RuntimeException("Network error: " + e.getMessage(), e));
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Hedged read: sends the request, and if no response has arrived after hedgeDelayMillis sends
+     * a duplicate. The first response wins and the other call is cancelled. A network failure
+     * launches the hedge at once instead of waiting. Only use with idempotent requests.
+     */
+    public static <T> CompletableFuture<T> enqueueHedged(OkHttpClient client, Request request, long hedgeDelayMillis,
+                                                         ScheduledExecutorService scheduler, ResponseHandler<T> handler) {
+        return new Hedge<>(client, request, handler).start(hedgeDelayMillis, scheduler);
+    }
+
+    private static class Hedge<T> implements Callback {
+        private static final int MAX_ATTEMPTS = 2;
+
+        private final OkHttpClient client;
+        private final Request request;
+        private final ResponseHandler<T> handler;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final List<Call> calls = new CopyOnWriteArrayList<>();
+        private int launched;
+        private int failed;
+        private ScheduledFuture<?> hedgeTimer;
+
+        Hedge(OkHttpClient client, Request request, ResponseHandler<T> handler) {
+            this.client = client;
+            this.request = request;
+            this.handler = handler;
+        }
+
+        CompletableFuture<T> start(long hedgeDelayMillis, ScheduledExecutorService scheduler) {
+            // Whoever completes the future, including a caller cancelling it, stops the rest
+            future.whenComplete((result, error) -> {
+                synchronized (this) {
+                    if (hedgeTimer != null) {
+                        hedgeTimer.cancel(false);
+                    }
+                }
+                for (Call call : calls) {
+                    call.cancel();
+                }
+            });
+            launch();
+            synchronized (this) {
+                if (!future.isDone()) {
+                    hedgeTimer = scheduler.schedule(this::launch, hedgeDelayMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+            return future;
+        }
+
+        private void launch() {
+            Call call;
+            synchronized (this) {
+                if (future.isDone() || launched >= MAX_ATTEMPTS) {
+                    return;
+                }
+                launched++;
+                call = client.newCall(request);
+                calls.add(call);
+                if (launched > 1) {
+                    android.util.Log.d("SupabaseClient", "Hedging slow request " + request.url().encodedPath());
+                }
+            }
+            call.enqueue(this);
+        }
+
+        @Override
+        public void onFailure(Call call, IOException e) {
+            boolean launchHedge;
+            synchronized (this) {
+                failed++;
+                if (future.isDone() || failed < launched) {
+                    return; // Already answered, or the other attempt is still in flight
+                }
+                launchHedge = launched < MAX_ATTEMPTS;
+            }
+            if (launchHedge) {
+                launch();
+            } else {
+                future.completeExceptionally(new RuntimeException("Network error: " + e.getMessage(), e));
+            }
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+            try (Response r = response) {
+                if (future.isDone()) {
+                    return;
+                }
+                future.complete(handler.handle(r));
+            } catch (IOException e) {
+                future.completeExceptionally(new RuntimeException("Network error: " + e.getMessage(), e));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.models.LibraryResource;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Walks the catalog in resource_id keyset pages so the first screen can render
+ * after one page instead of after the whole table.
+ */
+public class CatalogPager {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    private static final ServerTimed<List<LibraryResource>> NOTHING =
+        new ServerTimed<>(Collections.<LibraryResource>emptyList(), null);
+
+    private final SupabaseClient supabaseClient;
+    private final int pageSize;
+    private int lastResourceId = 0;
+    private boolean loading = false;
+    private boolean exhausted = false;
+    private int generation = 0; // Bumped on reset so late pages from a previous walk are dropped
+
+    public CatalogPager(SupabaseClient supabaseClient) {
+        this(supabaseClient, DEFAULT_PAGE_SIZE);
+    }
+
+    public CatalogPager(SupabaseClient supabaseClient, int pageSize) {
+        this.supabaseClient = supabaseClient;
+        this.pageSize = pageSize;
+    }
+
+    public synchronized void reset() {
+        lastResourceId = 0;
+        loading = false;
+        exhausted = false;
+        generation++;
+    }
+
+    public synchronized boolean isLoading() {
+        return loading;
+    }
+
+    public synchronized boolean hasMore() {
+        return !exhausted;
+    }
+
+    // Highest resource id delivered so far; 0 before the first page
+    public synchronized int getLastResourceId() {
+        return lastResourceId;
+    }
+
+    /**
+     * Fetches the page after the last one delivered, with the server time it is current as of.
+     * Completes with an empty list and no time when a page is already in flight or the catalog
+     * is exhausted, so scroll callbacks can call this freely.
+     */
+    public CompletableFuture<ServerTimed<List<LibraryResource>>> loadNextPage() {
+        final int afterResourceId;
+        final int requestGeneration;
+        synchronized (this) {
+            if (loading || exhausted) {
+                return CompletableFuture.completedFuture(NOTHING);
+            }
+            loading = true;
+            afterResourceId = lastResourceId;
+            requestGeneration = generation;
+        }
+
+        return supabaseClient.getLibraryResourcesPage(afterResourceId, pageSize)
+            .handle((page, e) -> {
+                synchronized (this) {
+                    if (requestGeneration != generation) {
+                        // A refresh started while this page was in flight
+                        return NOTHING;
+                    }
+                    loading = false;
+                    if (e != null) {
+                        throw new RuntimeException("Failed to load catalog page: " + e.getMessage(), e);
+                    }
+                    List<LibraryResource> resources = page.getValue();
+                    if (resources.size() < pageSize) {
+                        exhausted = true;
+                    }
+                    if (!resources.isEmpty()) {
+                        lastResourceId = resources.get(resources.size() - 1).getResourceId();
+                    }
+                    return page;
+                }
+            });
+    }
+}
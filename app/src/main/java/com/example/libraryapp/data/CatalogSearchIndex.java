@@ -0,0 +1,283 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.models.BookDetails;
+import com.example.libraryapp.models.LibraryResource;
+import com.example.libraryapp.models.PeriodicalDetails;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram index over the loaded catalog for as-you-type filtering. Each resource gets a
+ * normalized search key (title, accession number, author, ISBN, ISSN) and a slot number;
+ * every trigram of the key maps to a BitSet of slots. A query intersects the BitSets of its
+ * trigrams and confirms the few candidates with a substring check, so its cost follows the
+ * number of matches rather than the size of the catalog.
+ *
+ * Keys are built by index() and replaceAll() on the caller's thread, so call it off the main thread;
+ * the lock is only held while postings are swapped. Results keep the order resources
+ * were first indexed in. Resources are replaced by id and only removed by clear().
+ */
+public class CatalogSearchIndex {
+    private static final BitSet NONE = new BitSet();
+
+    private final List<Entry> slots = new ArrayList<>();
+    private final Map<Integer, Integer> slotByResourceId = new HashMap<>();
+    private final Map<Long, BitSet> postings = new HashMap<>();
+    private final Map<String, BitSet> slotsByCategory = new HashMap<>();
+    private long version; // Bumped on every change, so a Result knows whether it can be narrowed
+
+    /** Matches for one query, kept so that a longer query can narrow them instead of searching again. */
+    public static class Result {
+        private final String needle;
+        private final String category;
+        private final long version;
+        private final BitSet slots;
+        private final List<LibraryResource> resources;
+        final boolean narrowed;
+
+        Result(String needle, String category, long version, BitSet slots, List<LibraryResource> resources, boolean narrowed) {
+            this.needle = needle;
+            this.category = category;
+            this.version = version;
+            this.slots = slots;
+            this.resources = resources;
+            this.narrowed = narrowed;
+        }
+
+        public List<LibraryResource> getResources() {
+            return resources;
+        }
+    }
+
+    private static class Entry {
+        final LibraryResource resource;
+        final String key;
+        final String category;
+        final long[] trigrams;
+
+        Entry(LibraryResource resource) {
+            this.resource = resource;
+            this.key = normalize(searchText(resource));
+            this.category = resource.getCategory() != null ? resource.getCategory().toLowerCase(Locale.ROOT) : "";
+            this.trigrams = trigrams(key);
+        }
+    }
+
+    // Adds resources, or replaces them by id when they were indexed before
+    public void index(Collection<LibraryResource> resources) {
+        List<Entry> entries = prepare(resources);
+        synchronized (this) {
+            add(entries);
+            version++;
+        }
+    }
+
+    // Swaps in a freshly loaded catalog; searches see either the old contents or the new, never an empty index
+    public void replaceAll(Collection<LibraryResource> resources) {
+        List<Entry> entries = prepare(resources);
+        synchronized (this) {
+            clear();
+            add(entries);
+            version++;
+        }
+    }
+
+    private static List<Entry> prepare(Collection<LibraryResource> resources) {
+        List<Entry> entries = new ArrayList<>(resources.size());
+        for (LibraryResource resource : resources) {
+            entries.add(new Entry(resource));
+        }
+        return entries;
+    }
+
+    private void add(List<Entry> entries) {
+        for (Entry entry : entries) {
+            Integer slot = slotByResourceId.get(entry.resource.getResourceId());
+            if (slot == null) {
+                slot = slots.size();
+                slots.add(entry);
+                slotByResourceId.put(entry.resource.getResourceId(), slot);
+            } else {
+                unlink(slot, slots.get(slot));
+                slots.set(slot, entry);
+            }
+            link(slot, entry);
+        }
+    }
+
+    public synchronized void clear() {
+        slots.clear();
+        slotByResourceId.clear();
+        postings.clear();
+        slotsByCategory.clear();
+        version++;
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    /**
+     * Resources whose key contains the normalized query, limited to a category unless it is
+     * null or "All". An empty query returns the whole category.
+     */
+    public List<LibraryResource> search(String query, String category) {
+        return search(query, category, null).getResources();
+    }
+
+    /**
+     * Like search(query, category), but when the query contains the previous result's query and
+     * nothing was indexed in between, only the previous matches are checked. Typing a letter
+     * at a time therefore narrows a shrinking set instead of starting over.
+     */
+    public Result search(String query, String category, Result previous) {
+        String needle = normalize(query != null ? query : "").trim();
+        String categoryKey = category == null || "All".equalsIgnoreCase(category) ? null : category.toLowerCase(Locale.ROOT);
+
+        synchronized (this) {
+            boolean narrowing = previous != null && previous.version == version
+                && equal(previous.category, categoryKey) && needle.contains(previous.needle);
+
+            BitSet candidates;
+            if (narrowing) {
+                candidates = (BitSet) previous.slots.clone();
+            } else {
+                candidates = new BitSet(slots.size());
+                if (categoryKey == null) {
+                    candidates.set(0, slots.size());
+                } else {
+                    candidates.or(slotsByCategory.getOrDefault(categoryKey, NONE));
+                }
+
+                // Shorter queries have no trigrams and fall through to the substring check alone
+                for (long trigram : trigrams(needle)) {
+                    candidates.and(postings.getOrDefault(trigram, NONE));
+                    if (candidates.isEmpty()) {
+                        break;
+                    }
+                }
+            }
+
+            List<LibraryResource> results = new ArrayList<>();
+            for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+                Entry entry = slots.get(slot);
+                if (needle.isEmpty() || entry.key.contains(needle)) {
+                    results.add(entry.resource);
+                } else {
+                    candidates.clear(slot);
+                }
+            }
+            return new Result(needle, categoryKey, version, candidates, results, narrowing);
+        }
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private void link(int slot, Entry entry) {
+        for (long trigram : entry.trigrams) {
+            BitSet bits = postings.get(trigram);
+            if (bits == null) {
+                bits = new BitSet();
+                postings.put(trigram, bits);
+            }
+            bits.set(slot);
+        }
+        BitSet category = slotsByCategory.get(entry.category);
+        if (category == null) {
+            category = new BitSet();
+            slotsByCategory.put(entry.category, category);
+        }
+        category.set(slot);
+    }
+
+    private void unlink(int slot, Entry entry) {
+        for (long trigram : entry.trigrams) {
+            BitSet bits = postings.get(trigram);
+            if (bits != null) {
+                bits.clear(slot);
+                if (bits.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+        BitSet category = slotsByCategory.get(entry.category);
+        if (category != null) {
+            category.clear(slot);
+        }
+    }
+
+    private static String searchText(LibraryResource resource) {
+        StringBuilder text = new StringBuilder();
+        append(text, resource.getTitle());
+        append(text, resource.getAccessionNumber());
+        BookDetails book = resource.getBookDetails();
+        if (book != null) {
+            append(text, book.getAuthor());
+            append(text, book.getIsbn());
+        }
+        PeriodicalDetails periodical = resource.getPeriodicalDetails();
+        if (periodical != null) {
+            append(text, periodical.getIssn());
+        }
+        return text.toString();
+    }
+
+    private static void append(StringBuilder text, String field) {
+        if (field != null && !field.isEmpty()) {
+            text.append(field).append(' ');
+        }
+    }
+
+    /**
+     * Lower-cases, strips accents and hyphens (so "978-0-441" finds "9780441"), and turns any
+     * other punctuation into single spaces. Queries and keys go through the same rules.
+     */
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && out.length() > 0) {
+                    out.append(' ');
+                }
+                pendingSpace = false;
+                out.append(Character.toLowerCase(c));
+            } else if (c != '-' && Character.getType(c) != Character.NON_SPACING_MARK) {
+                pendingSpace = true;
+            }
+        }
+        if (pendingSpace && out.length() > 0) {
+            out.append(' ');
+        }
+        return out.toString();
+    }
+
+    // Distinct trigrams, each packed as three 16-bit chars
+    private static long[] trigrams(String key) {
+        if (key.length() < 3) {
+            return new long[0];
+        }
+        Set<Long> distinct = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= key.length(); i++) {
+            distinct.add(((long) key.charAt(i) << 32) | ((long) key.charAt(i + 1) << 16) | key.charAt(i + 2));
+        }
+        long[] packed = new long[distinct.size()];
+        int i = 0;
+        for (Long trigram : distinct) {
+            packed[i++] = trigram;
+        }
+        return packed;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.models.LibraryResource;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs dashboard searches against a CatalogSearchIndex off the main thread.
+ *
+ * Keystrokes are debounced, and every submit supersedes the ones before it: a search that
+ * has been overtaken is skipped, or its result dropped. Each search narrows the previous
+ * result when it can. Results go through frameExecutor, which should run tasks on the next
+ * frame; if several arrive before it runs, only the newest is delivered.
+ */
+public class CatalogSearchPipeline {
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 150;
+
+    public interface Listener {
+        void onResults(List<LibraryResource> resources);
+    }
+
+    private final CatalogSearchIndex index;
+    private final Executor worker;
+    private final ScheduledExecutorService scheduler;
+    private final Executor frameExecutor;
+    private final Listener listener;
+    private final long debounceMillis;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicReference<CatalogSearchIndex.Result> pendingDelivery = new AtomicReference<>();
+    private volatile CatalogSearchIndex.Result lastResult;
+    private volatile boolean closed;
+    private ScheduledFuture<?> debounce;
+
+    public CatalogSearchPipeline(CatalogSearchIndex index, Executor worker, ScheduledExecutorService scheduler,
+                                 Executor frameExecutor, long debounceMillis, Listener listener) {
+        this.index = index;
+        this.worker = worker;
+        this.scheduler = scheduler;
+        this.frameExecutor = frameExecutor;
+        this.debounceMillis = debounceMillis;
+        this.listener = listener;
+    }
+
+    // For typing: waits until input pauses for the debounce interval
+    public void submit(String query, String category) {
+        long searchGeneration = generation.incrementAndGet();
+        synchronized (this) {
+            cancelDebounce();
+            debounce = scheduler.schedule(() -> worker.execute(() -> run(searchGeneration, query, category)),
+                debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // For data or category changes, where there is nothing to wait for
+    public void submitNow(String query, String category) {
+        long searchGeneration = generation.incrementAndGet();
+        synchronized (this) {
+            cancelDebounce();
+        }
+        worker.execute(() -> run(searchGeneration, query, category));
+    }
+
+    // Drops pending searches and undelivered results; call from onDestroy
+    public void close() {
+        closed = true;
+        generation.incrementAndGet();
+        synchronized (this) {
+            cancelDebounce();
+        }
+        pendingDelivery.set(null);
+    }
+
+    private void cancelDebounce() {
+        if (debounce != null) {
+            debounce.cancel(false);
+            debounce = null;
+        }
+    }
+
+    private void run(long searchGeneration, String query, String category) {
+        if (isStale(searchGeneration)) {
+            return;
+        }
+        CatalogSearchIndex.Result result = index.search(query, category, lastResult);
+        if (isStale(searchGeneration)) {
+            return;
+        }
+        lastResult = result;
+
+        // Only the first result since the last delivery schedules a frame; later ones replace it
+        if (pendingDelivery.getAndSet(result) == null) {
+            frameExecutor.execute(this::deliver);
+        }
+    }
+
+    private void deliver() {
+        CatalogSearchIndex.Result result = pendingDelivery.getAndSet(null);
+        if (result != null && !closed) {
+            listener.onResults(result.getResources());
+        }
+    }
+
+    private boolean isStale(long searchGeneration) {
+        return closed || searchGeneration != generation.get();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.models.LibraryResource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * In-memory catalog kept current by delta sync. A refresh asks only for rows whose
+ * updated_at is past a watermark and merges them by resource id, so its cost follows what
+ * changed rather than the size of the catalog.
+ *
+ * The watermark is server time, never the updated_at of loaded rows: a page fetched later
+ * can carry a newer updated_at than an edit made to an earlier page after it was fetched.
+ * It starts at the time the first page was served and only moves forward when a sync
+ * completes, each time less WATERMARK_OVERLAP_MILLIS, so rows whose transaction started
+ * before that point but committed after it are still picked up. Rows the overlap brings
+ * back unchanged are not reported again. updated_at is maintained by a trigger.
+ *
+ * Deleted rows are not detected by a delta; a full reload picks those up.
+ */
+public class CatalogSync {
+    private static final String RESOURCES_TABLE = "library_resources";
+    // Covers the Date header's one-second resolution and writes still in flight when a page was read
+    static final long WATERMARK_OVERLAP_MILLIS = 60 * 1000;
+
+    private final SupabaseClient supabaseClient;
+    private final TreeMap<Integer, LibraryResource> resourcesById = new TreeMap<>();
+    private final Map<String, Long> watermarks = new HashMap<>(); // Table -> server time to sync from, epoch millis
+
+    public CatalogSync(SupabaseClient supabaseClient) {
+        this.supabaseClient = supabaseClient;
+    }
+
+    public synchronized void reset() {
+        resourcesById.clear();
+        watermarks.clear();
+    }
+
+    // Merge rows that arrived through a full or paged load; serverTime is when they were served.
+    // Only the first load sets the watermark, since later pages are newer than the first one.
+    public synchronized void mergeLoaded(List<LibraryResource> resources, Date serverTime) {
+        for (LibraryResource resource : resources) {
+            resourcesById.put(resource.getResourceId(), resource);
+        }
+        if (serverTime != null && !watermarks.containsKey(RESOURCES_TABLE)) {
+            watermarks.put(RESOURCES_TABLE, serverTime.getTime() - WATERMARK_OVERLAP_MILLIS);
+        }
+    }
+
+    public synchronized List<LibraryResource> snapshot() {
+        return new ArrayList<>(resourcesById.values());
+    }
+
+    public synchronized Date getWatermark() {
+        Long millis = watermarks.get(RESOURCES_TABLE);
+        return millis != null ? new Date(millis) : null;
+    }
+
+    /**
+     * Fetches rows updated since the watermark and merges them. New rows past
+     * loadedUpToResourceId are left for the pager so they are not delivered twice; pass
+     * Integer.MAX_VALUE once the whole catalog is loaded. Completes with the rows that changed.
+     */
+    public CompletableFuture<List<LibraryResource>> sync(int loadedUpToResourceId) {
+        Date watermark = getWatermark();
+        if (watermark == null) {
+            // Nothing loaded yet, so there is nothing to bring up to date
+            return CompletableFuture.completedFuture(Collections.<LibraryResource>emptyList());
+        }
+
+        return supabaseClient.getLibraryResourcesUpdatedSince(watermark)
+            .thenApply(changed -> merge(changed, loadedUpToResourceId));
+    }
+
+    private synchronized List<LibraryResource> merge(ServerTimed<List<LibraryResource>> changed, int loadedUpToResourceId) {
+        List<LibraryResource> merged = new ArrayList<>();
+        for (LibraryResource resource : changed.getValue()) {
+            LibraryResource held = resourcesById.get(resource.getResourceId());
+            if (held != null && sameTime(held.getUpdatedAt(), resource.getUpdatedAt())) {
+                // Fetched again only because of the overlap
+                continue;
+            }
+            // Rows beyond the loaded range will come through the pager
+            if (held != null || resource.getResourceId() <= loadedUpToResourceId) {
+                resourcesById.put(resource.getResourceId(), resource);
+                merged.add(resource);
+            }
+        }
+        advanceWatermark(changed.getServerTime());
+        android.util.Log.d("CatalogSync", "Merged " + merged.size() + " of " + changed.getValue().size() + " changed resources");
+        return merged;
+    }
+
+    private void advanceWatermark(Date serverTime) {
+        if (serverTime == null) {
+            return;
+        }
+        long next = serverTime.getTime() - WATERMARK_OVERLAP_MILLIS;
+        Long current = watermarks.get(RESOURCES_TABLE);
+        if (current == null || next > current) {
+            watermarks.put(RESOURCES_TABLE, next);
+        }
+    }
+
+    private static boolean sameTime(Date a, Date b) {
+        return a != null && b != null && a.getTime() == b.getTime();
+    }
+}
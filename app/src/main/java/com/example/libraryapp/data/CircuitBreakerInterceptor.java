@@ -0,0 +1,130 @@
+package com.example.libraryapp.data;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Per-endpoint circuit breaker. After enough consecutive failures (network errors or 5xx) the
+ * endpoint is considered down and calls fail immediately with {@link CircuitOpenException}
+ * instead of each waiting for a timeout. After a cool-down one trial call is let through;
+ * its outcome closes the circuit again or restarts the cool-down.
+ *
+ * Endpoints are the table or RPC name, so a broken enrichment table does not block logins.
+ * Installed outside {@link RetryInterceptor}, so a request that exhausted its retries counts once.
+ */
+public class CircuitBreakerInterceptor implements Interceptor {
+
+    interface Clock {
+        long nowMillis();
+    }
+
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static class Circuit {
+        State state = State.CLOSED;
+        int consecutiveFailures;
+        long openedAtMillis;
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+    private final Map<String, Circuit> circuits = new HashMap<>();
+
+    public CircuitBreakerInterceptor() {
+        this(5, 30_000);
+    }
+
+    public CircuitBreakerInterceptor(int failureThreshold, long openMillis) {
+        this(failureThreshold, openMillis, System::currentTimeMillis);
+    }
+
+    CircuitBreakerInterceptor(int failureThreshold, long openMillis, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = PostgrestEndpoints.endpointOf(request);
+        acquire(endpoint);
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            // A cancelled call says nothing about the backend
+            if (chain.call().isCanceled()) {
+                release(endpoint);
+            } else {
+                recordFailure(endpoint);
+            }
+            throw e;
+        }
+
+        if (response.code() >= 500) {
+            recordFailure(endpoint);
+        } else {
+            recordSuccess(endpoint);
+        }
+        return response;
+    }
+
+    private synchronized void acquire(String endpoint) throws CircuitOpenException {
+        Circuit circuit = circuits.get(endpoint);
+        if (circuit == null || circuit.state == State.CLOSED) {
+            return;
+        }
+        long elapsed = clock.nowMillis() - circuit.openedAtMillis;
+        if (circuit.state == State.OPEN && elapsed >= openMillis) {
+            // Let exactly one trial call through
+            circuit.state = State.HALF_OPEN;
+            android.util.Log.i("SupabaseClient", "Circuit half-open for " + endpoint);
+            return;
+        }
+        throw new CircuitOpenException(endpoint, Math.max(0, openMillis - elapsed));
+    }
+
+    // The trial call was cancelled: allow the next caller to try instead
+    private synchronized void release(String endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        if (circuit != null && circuit.state == State.HALF_OPEN) {
+            circuit.state = State.OPEN;
+            circuit.openedAtMillis = clock.nowMillis() - openMillis;
+        }
+    }
+
+    private synchronized void recordSuccess(String endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        if (circuit == null) {
+            return;
+        }
+        if (circuit.state != State.CLOSED) {
+            android.util.Log.i("SupabaseClient", "Circuit closed for " + endpoint);
+        }
+        circuit.state = State.CLOSED;
+        circuit.consecutiveFailures = 0;
+    }
+
+    private synchronized void recordFailure(String endpoint) {
+        Circuit circuit = circuits.get(endpoint);
+        if (circuit == null) {
+            circuit = new Circuit();
+            circuits.put(endpoint, circuit);
+        }
+        circuit.consecutiveFailures++;
+        if (circuit.state == State.HALF_OPEN || circuit.consecutiveFailures >= failureThreshold) {
+            if (circuit.state != State.OPEN) {
+                android.util.Log.w("SupabaseClient", "Circuit opened for " + endpoint + " after " + circuit.consecutiveFailures + " consecutive failures");
+            }
+            circuit.state = State.OPEN;
+            circuit.openedAtMillis = clock.nowMillis();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.libraryapp.data;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of making a request while the circuit for its endpoint is open. An IOException,
+ * so it surfaces through the same "Network error" path as a failed connection.
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    private final String endpoint;
+
+    public CircuitOpenException(String endpoint, long retryInMillis) {
+        super("Service temporarily unavailable (" + endpoint + "), retry in " + Math.max(1, retryInMillis / 1000) + "s");
+        this.endpoint = endpoint;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
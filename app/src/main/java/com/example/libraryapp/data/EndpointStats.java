@@ -0,0 +1,103 @@
+package com.example.libraryapp.data;
+
+import java.util.Locale;
+
+/**
+ * Point-in-time view of one endpoint's network timings. Phase durations are in milliseconds;
+ * dns, connect and tls only have samples for calls that opened a new connection.
+ */
+public class EndpointStats {
+    private final String endpoint;
+    private final long calls;
+    private final long failures;
+    private final long cacheHits;
+    private final long bytesRead;
+    private final RollingHistogram.Summary dns;
+    private final RollingHistogram.Summary connect;
+    private final RollingHistogram.Summary tls;
+    private final RollingHistogram.Summary timeToFirstByte;
+    private final RollingHistogram.Summary bodyRead;
+    private final RollingHistogram.Summary total;
+
+    EndpointStats(String endpoint, long calls, long failures, long cacheHits, long bytesRead,
+                  RollingHistogram.Summary dns, RollingHistogram.Summary connect, RollingHistogram.Summary tls,
+                  RollingHistogram.Summary timeToFirstByte, RollingHistogram.Summary bodyRead, RollingHistogram.Summary total) {
+        this.endpoint = endpoint;
+        this.calls = calls;
+        this.failures = failures;
+        this.cacheHits = cacheHits;
+        this.bytesRead = bytesRead;
+        this.dns = dns;
+        this.connect = connect;
+        this.tls = tls;
+        this.timeToFirstByte = timeToFirstByte;
+        this.bodyRead = bodyRead;
+        this.total = total;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public RollingHistogram.Summary getDns() {
+        return dns;
+    }
+
+    public RollingHistogram.Summary getConnect() {
+        return connect;
+    }
+
+    public RollingHistogram.Summary getTls() {
+        return tls;
+    }
+
+    public RollingHistogram.Summary getTimeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    public RollingHistogram.Summary getBodyRead() {
+        return bodyRead;
+    }
+
+    public RollingHistogram.Summary getTotal() {
+        return total;
+    }
+
+    // Multi-line text for logs and the debug screen
+    public String format() {
+        StringBuilder text = new StringBuilder()
+            .append(endpoint.isEmpty() ? "(root)" : endpoint)
+            .append(String.format(Locale.US, "\n  calls %d, failed %d, cache hits %d, %.1f KB read",
+                calls, failures, cacheHits, bytesRead / 1024.0));
+        appendPhase(text, "total", total);
+        appendPhase(text, "ttfb", timeToFirstByte);
+        appendPhase(text, "body", bodyRead);
+        appendPhase(text, "dns", dns);
+        appendPhase(text, "connect", connect);
+        appendPhase(text, "tls", tls);
+        return text.toString();
+    }
+
+    private static void appendPhase(StringBuilder text, String name, RollingHistogram.Summary summary) {
+        if (summary.getCount() > 0) {
+            text.append(String.format(Locale.US, "\n  %-8s p50 %4d  p95 %4d  max %4d ms  (n=%d)",
+                name, summary.getP50(), summary.getP95(), summary.getMax(), summary.getCount()));
+        }
+    }
+}
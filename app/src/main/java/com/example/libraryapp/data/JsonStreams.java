@@ -0,0 +1,98 @@
+package com.example.libraryapp.data;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import okhttp3.ResponseBody;
+
+/**
+ * Streams PostgREST responses straight off the socket with a JsonReader, so only one
+ * record is materialised at a time instead of the whole body as a String.
+ */
+public final class JsonStreams {
+
+    private JsonStreams() {
+    }
+
+    public static <T> List<T> readList(Gson gson, ResponseBody body, Class<T> type) throws IOException {
+        List<T> items = new ArrayList<>();
+        forEach(gson, body, type, items::add);
+        return items;
+    }
+
+    /**
+     * Binds each array element and hands it to the consumer as soon as it is parsed.
+     * Returns the number of elements delivered; an empty or null body delivers none.
+     */
+    public static <T> int forEach(Gson gson, ResponseBody body, Class<T> type, Consumer<? super T> consumer) throws IOException {
+        if (body == null) {
+            return 0;
+        }
+
+        try (JsonReader reader = new JsonReader(body.charStream())) {
+            if (!openArray(reader)) {
+                return 0;
+            }
+
+            int count = 0;
+            while (reader.hasNext()) {
+                consumer.accept(gson.fromJson(reader, type));
+                count++;
+            }
+            reader.endArray();
+            return count;
+        }
+    }
+
+    /**
+     * Reads one record: a bare object, as a function returning a single row sends it, or the
+     * first element of an array. Returns null for an empty array or an empty or null body.
+     */
+    public static <T> T readFirst(Gson gson, ResponseBody body, Class<T> type) throws IOException {
+        if (body == null) {
+            return null;
+        }
+
+        try (JsonReader reader = new JsonReader(body.charStream())) {
+            JsonToken first;
+            try {
+                first = reader.peek();
+            } catch (EOFException e) {
+                return null;
+            }
+
+            if (first == JsonToken.BEGIN_OBJECT) {
+                return gson.fromJson(reader, type);
+            }
+            if (!openArray(reader) || !reader.hasNext()) {
+                return null;
+            }
+            return gson.fromJson(reader, type);
+        }
+    }
+
+    // Positions the reader inside the top-level array; false for an empty or null body
+    private static boolean openArray(JsonReader reader) throws IOException {
+        JsonToken first;
+        try {
+            first = reader.peek();
+        } catch (EOFException e) {
+            return false;
+        }
+
+        if (first == JsonToken.NULL) {
+            return false;
+        }
+        if (first != JsonToken.BEGIN_ARRAY) {
+            throw new IOException("Expected a JSON array but found " + first);
+        }
+
+        reader.beginArray();
+        return true;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example.libraryapp.data;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * OkHttp EventListener factory that times each phase of every call (DNS, connect, TLS,
+ * time to first byte, body read) and aggregates them per endpoint: the table or RPC name,
+ * as in "library_resources" or "rpc/request_borrow". Costs a few clock reads per call,
+ * so it stays on in release builds, unlike body logging.
+ */
+public class NetworkMetrics implements EventListener.Factory {
+    private static final int SAMPLES_PER_PHASE = 256;
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public EventListener create(Call call) {
+        return new CallTimer(endpointFor(PostgrestEndpoints.endpointOf(call.request())));
+    }
+
+    // Sorted by endpoint name
+    public List<EndpointStats> snapshot() {
+        List<EndpointStats> stats = new ArrayList<>();
+        for (Endpoint endpoint : endpoints.values()) {
+            stats.add(endpoint.snapshot());
+        }
+        Collections.sort(stats, (a, b) -> a.getEndpoint().compareTo(b.getEndpoint()));
+        return stats;
+    }
+
+    public void reset() {
+        endpoints.clear();
+    }
+
+    private Endpoint endpointFor(String name) {
+        Endpoint endpoint = endpoints.get(name);
+        if (endpoint == null) {
+            Endpoint created = new Endpoint(name);
+            endpoint = endpoints.putIfAbsent(name, created);
+            if (endpoint == null) {
+                endpoint = created;
+            }
+        }
+        return endpoint;
+    }
+
+    private static class Endpoint {
+        final String name;
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong cacheHits = new AtomicLong();
+        final AtomicLong bytesRead = new AtomicLong();
+        final RollingHistogram dns = new RollingHistogram(SAMPLES_PER_PHASE);
+        final RollingHistogram connect = new RollingHistogram(SAMPLES_PER_PHASE);
+        final RollingHistogram tls = new RollingHistogram(SAMPLES_PER_PHASE);
+        final RollingHistogram timeToFirstByte = new RollingHistogram(SAMPLES_PER_PHASE);
+        final RollingHistogram bodyRead = new RollingHistogram(SAMPLES_PER_PHASE);
+        final RollingHistogram total = new RollingHistogram(SAMPLES_PER_PHASE);
+
+        Endpoint(String name) {
+            this.name = name;
+        }
+
+        EndpointStats snapshot() {
+            return new EndpointStats(name, calls.get(), failures.get(), cacheHits.get(), bytesRead.get(),
+                dns.summarize(), connect.summarize(), tls.summarize(),
+                timeToFirstByte.summarize(), bodyRead.summarize(), total.summarize());
+        }
+    }
+
+    // One per call; OkHttp delivers a call's events sequentially, retries included
+    private static class CallTimer extends EventListener {
+        private final Endpoint endpoint;
+        private long callStart;
+        private long dnsStart;
+        private long connectStart;
+        private long secureConnectStart;
+        private long requestSent;
+        private long bodyStart;
+
+        CallTimer(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        private static long now() {
+            return System.nanoTime();
+        }
+
+        private static long millisSince(long start) {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+
+        @Override
+        public void callStart(Call call) {
+            callStart = now();
+        }
+
+        @Override
+        public void dnsStart(Call call, String domainName) {
+            dnsStart = now();
+        }
+
+        @Override
+        public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+            endpoint.dns.record(millisSince(dnsStart));
+        }
+
+        @Override
+        public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+            connectStart = now();
+        }
+
+        @Override
+        public void secureConnectStart(Call call) {
+            secureConnectStart = now();
+        }
+
+        @Override
+        public void secureConnectEnd(Call call, Handshake handshake) {
+            endpoint.tls.record(millisSince(secureConnectStart));
+        }
+
+        // Includes the TLS handshake
+        @Override
+        public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+            endpoint.connect.record(millisSince(connectStart));
+        }
+
+        @Override
+        public void requestHeadersEnd(Call call, Request request) {
+            requestSent = now();
+        }
+
+        @Override
+        public void requestBodyEnd(Call call, long byteCount) {
+            requestSent = now();
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            if (requestSent != 0) {
+                endpoint.timeToFirstByte.record(millisSince(requestSent));
+            }
+        }
+
+        @Override
+        public void responseBodyStart(Call call) {
+            bodyStart = now();
+        }
+
+        @Override
+        public void responseBodyEnd(Call call, long byteCount) {
+            endpoint.bodyRead.record(millisSince(bodyStart));
+            endpoint.bytesRead.addAndGet(byteCount);
+        }
+
+        @Override
+        public void cacheHit(Call call, Response response) {
+            endpoint.cacheHits.incrementAndGet();
+        }
+
+        @Override
+        public void callEnd(Call call) {
+            endpoint.calls.incrementAndGet();
+            endpoint.total.record(millisSince(callStart));
+        }
+
+        @Override
+        public void callFailed(Call call, IOException ioe) {
+            endpoint.calls.incrementAndGet();
+            endpoint.failures.incrementAndGet();
+            endpoint.total.record(millisSince(callStart));
+        }
+    }
+}
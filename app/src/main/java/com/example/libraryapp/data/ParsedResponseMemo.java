@@ -0,0 +1,106 @@
+package com.example.libraryapp.data;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import okhttp3.Response;
+
+/**
+ * Remembers the last parsed result per request key, so a response served from the HTTP
+ * cache, or revalidated by a 304, hands back the objects built last time instead of
+ * decoding the same body again.
+ *
+ * Only responses the HTTP cache may store are remembered; no-store responses (users,
+ * borrowings, counts) are parsed and passed through. The memo keeps its own copy of each
+ * value and every hit returns a fresh copy, so callers can modify what they receive.
+ */
+public class ParsedResponseMemo {
+    private static final int MAX_ENTRIES = 32;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final AtomicLong hits = new AtomicLong();
+    private final UnaryOperator<Object> copier;
+
+    // copier must return a value that shares nothing mutable with its argument
+    public ParsedResponseMemo(UnaryOperator<Object> copier) {
+        this.copier = copier;
+    }
+
+    private static class Entry {
+        final String fingerprint;
+        final Object value;
+
+        Entry(String fingerprint, Object value) {
+            this.fingerprint = fingerprint;
+            this.value = value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T parse(String key, Response response, CallFutures.ResponseHandler<T> handler) throws IOException {
+        String fingerprint = fingerprint(response);
+        // Either a cache hit or a stored body the server confirmed with a 304
+        boolean servedFromCache = response.cacheResponse() != null;
+
+        if (servedFromCache) {
+            Entry entry;
+            synchronized (entries) {
+                entry = entries.get(key);
+            }
+            if (entry != null && entry.fingerprint.equals(fingerprint)) {
+                hits.incrementAndGet();
+                android.util.Log.d("ParsedResponseMemo", "Reusing parsed result for cached response: " + key);
+                return (T) copier.apply(entry.value);
+            }
+        }
+
+        T value = handler.handle(response);
+        if (response.isSuccessful() && value != null && isCacheable(response)) {
+            Object snapshot = copier.apply(value);
+            synchronized (entries) {
+                entries.put(key, new Entry(fingerprint, snapshot));
+            }
+        }
+        return value;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // Served from the cache, or allowed into it; a later hit can only be one of these
+    private static boolean isCacheable(Response response) {
+        if (response.cacheResponse() != null) {
+            return true;
+        }
+        return !response.request().cacheControl().noStore()
+            && !response.cacheControl().noStore()
+            && response.cacheControl().maxAgeSeconds() > 0;
+    }
+
+    // The ETag names the body, and survives a 304. Without one, the stored entry is identified by
+    // the time it was received, which OkHttp carries over unchanged on every plain cache hit.
+    private static String fingerprint(Response response) {
+        String etag = response.header("ETag");
+        return etag != null ? "etag:" + etag : "received:" + response.receivedResponseAtMillis();
+    }
+}
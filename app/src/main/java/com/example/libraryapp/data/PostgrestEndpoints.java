@@ -0,0 +1,28 @@
+package com.example.libraryapp.data;
+
+import okhttp3.Request;
+
+/**
+ * Names a PostgREST request by the table or RPC it targets, as in "library_resources" or
+ * "rpc/request_borrow". Cache policy, circuit breakers and metrics are all kept per endpoint.
+ */
+final class PostgrestEndpoints {
+    private static final String REST_PREFIX = "/rest/v1/";
+
+    private PostgrestEndpoints() {
+    }
+
+    // "" for anything outside /rest/v1/
+    static String endpointOf(Request request) {
+        String path = request.url().encodedPath();
+        int start = path.indexOf(REST_PREFIX);
+        if (start < 0) {
+            return "";
+        }
+        start += REST_PREFIX.length();
+        // RPC names keep their "rpc/" prefix
+        int nameStart = path.startsWith("rpc/", start) ? start + "rpc/".length() : start;
+        int end = path.indexOf('/', nameStart);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.libraryapp.data;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ThreadLocalRandom;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Retries idempotent requests (GET and HEAD) on network errors and on responses that mean
+ * "try again later", waiting a jittered exponential backoff between attempts. Writes are never
+ * retried here; borrowing creation is made safe to repeat by its idempotency key instead.
+ */
+public class RetryInterceptor implements Interceptor {
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    public RetryInterceptor() {
+        this(3, 200, 2000);
+    }
+
+    public RetryInterceptor(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!isIdempotent(request)) {
+            return chain.proceed(request);
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                if (attempt >= maxAttempts || chain.call().isCanceled() || e instanceof CircuitOpenException) {
+                    throw e;
+                }
+                android.util.Log.w("SupabaseClient", "Retrying " + request.url().encodedPath() + " after network error (attempt " + attempt + "): " + e.getMessage());
+                backOff(attempt);
+                continue;
+            }
+
+            if (attempt >= maxAttempts || !isRetryable(response.code())) {
+                return response;
+            }
+            android.util.Log.w("SupabaseClient", "Retrying " + request.url().encodedPath() + " after HTTP " + response.code() + " (attempt " + attempt + ")");
+            response.close();
+            backOff(attempt);
+        }
+    }
+
+    static boolean isIdempotent(Request request) {
+        return "GET".equals(request.method()) || "HEAD".equals(request.method());
+    }
+
+    // Rate limiting and gateway/availability errors are transient; other errors will not change on retry
+    static boolean isRetryable(int code) {
+        return code == 429 || code == 502 || code == 503 || code == 504;
+    }
+
+    // "Full jitter": a random wait up to the exponential cap, so clients that failed together
+    // do not all come back at the same moment
+    private void backOff(int attempt) throws IOException {
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to retry");
+        }
+    }
+}
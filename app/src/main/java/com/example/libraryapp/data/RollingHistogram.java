@@ -0,0 +1,74 @@
+package com.example.libraryapp.data;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent samples in a ring buffer and reports percentiles over them, so the numbers
+ * describe current behaviour instead of averaging in every request since process start.
+ */
+public class RollingHistogram {
+
+    public static class Summary {
+        private final int count;
+        private final long p50;
+        private final long p95;
+        private final long max;
+
+        Summary(int count, long p50, long p95, long max) {
+            this.count = count;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.max = max;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP95() {
+            return p95;
+        }
+
+        public long getMax() {
+            return max;
+        }
+    }
+
+    private final long[] samples;
+    private int next;
+    private int size;
+
+    public RollingHistogram(int capacity) {
+        samples = new long[capacity];
+    }
+
+    public synchronized void record(long value) {
+        samples[next] = value;
+        next = (next + 1) % samples.length;
+        if (size < samples.length) {
+            size++;
+        }
+    }
+
+    public Summary summarize() {
+        long[] sorted;
+        synchronized (this) {
+            sorted = Arrays.copyOf(samples, size);
+        }
+        if (sorted.length == 0) {
+            return new Summary(0, 0, 0, 0);
+        }
+        Arrays.sort(sorted);
+        return new Summary(sorted.length, percentile(sorted, 0.50), percentile(sorted, 0.95), sorted[sorted.length - 1]);
+    }
+
+    // Nearest-rank percentile of an ascending array
+    private static long percentile(long[] sorted, double fraction) {
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.libraryapp.data;
+
+import java.util.Date;
+import okhttp3.Response;
+
+/**
+ * A parsed response together with the server time it is current as of, taken from the
+ * response's Date header. Cached responses keep the Date they were first served with, so
+ * the time says how old the data is rather than when it was read.
+ */
+public class ServerTimed<T> {
+    private final T value;
+    private final Date serverTime;
+
+    public ServerTimed(T value, Date serverTime) {
+        this.value = value;
+        this.serverTime = serverTime;
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    // Null when nothing was fetched
+    public Date getServerTime() {
+        return serverTime;
+    }
+
+    // Falls back to the local time the request was sent when the server sends no Date
+    static Date serverTimeOf(Response response) {
+        Date date = response.headers().getDate("Date");
+        return date != null ? date : new Date(response.sentRequestAtMillis());
+    }
+}
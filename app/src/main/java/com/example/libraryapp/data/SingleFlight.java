@@ -0,0 +1,102 @@
+package com.example.libraryapp.data;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls with the same key onto one in-flight future. Callers that
+ * arrive while a call is running share its result instead of starting their own; once
+ * it completes the key is released and the next caller starts a fresh call.
+ *
+ * Each caller gets its own dependent future. Cancelling it only detaches that caller;
+ * the shared call is cancelled once every caller has cancelled.
+ */
+public class SingleFlight {
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+
+    public <T> CompletableFuture<T> execute(String key, Supplier<CompletableFuture<T>> call) {
+        while (true) {
+            Flight created = new Flight();
+            Flight existing = inFlight.putIfAbsent(key, created);
+
+            if (existing != null) {
+                CompletableFuture<T> joined = existing.join();
+                if (joined != null) {
+                    hits.incrementAndGet();
+                    android.util.Log.d("SingleFlight", "Joined in-flight call: " + key);
+                    return joined;
+                }
+                // Every caller of that flight cancelled; it is on its way out, so start a new one
+                inFlight.remove(key, existing);
+                continue;
+            }
+
+            CompletableFuture<T> source;
+            try {
+                source = call.get();
+            } catch (RuntimeException e) {
+                inFlight.remove(key, created);
+                created.result.completeExceptionally(e);
+                return created.join();
+            }
+
+            created.source = source;
+            CompletableFuture<T> first = created.join();
+            source.whenComplete((result, error) -> {
+                // Release the key before completing so callers arriving afterwards start a new call
+                inFlight.remove(key, created);
+                if (error != null) {
+                    created.result.completeExceptionally(error);
+                } else {
+                    created.result.complete(result);
+                }
+            });
+            return first;
+        }
+    }
+
+    // Calls that joined an existing flight instead of going to the network
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    private static class Flight {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        volatile CompletableFuture<?> source;
+        private int callers;
+        private boolean abandoned;
+
+        // Null once every caller has cancelled
+        @SuppressWarnings("unchecked")
+        synchronized <T> CompletableFuture<T> join() {
+            if (abandoned) {
+                return null;
+            }
+            callers++;
+            CompletableFuture<T> dependent = result.thenApply(value -> (T) value);
+            dependent.whenComplete((value, error) -> {
+                if (dependent.isCancelled()) {
+                    leave();
+                }
+            });
+            return dependent;
+        }
+
+        private void leave() {
+            CompletableFuture<?> toCancel = null;
+            synchronized (this) {
+                if (--callers == 0 && !result.isDone()) {
+                    abandoned = true;
+                    toCancel = source;
+                }
+            }
+            if (toCancel != null) {
+                toCancel.cancel(false);
+            }
+        }
+    }
+}
@@ -1,72 +1,127 @@
 package com.example.libraryapp.data;
 
 import android.content.Context;
+import com.example.libraryapp.BuildConfig;
+import com.example.libraryapp.core.concurrency.AppExecutors;
+import com.example.libraryapp.core.concurrency.Futures;
+import com.example.libraryapp.core.concurrency.RequestScope;
 import com.example.libraryapp.core.config.SupabaseConfig;
+import com.example.libraryapp.data.json.ModelTypeAdapters;
+import com.example.libraryapp.data.json.Timestamps;
 import com.example.libraryapp.models.User;
 import com.example.libraryapp.models.LibraryResource;
 import com.example.libraryapp.utils.PasswordUtils;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.reflect.TypeToken;
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okhttp3.ResponseBody;
 import okhttp3.logging.HttpLoggingInterceptor;
+import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.util.Date;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import org.mindrot.jbcrypt.BCrypt;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
-import java.text.SimpleDateFormat;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Locale;
+import java.util.Arrays;
 import com.example.libraryapp.models.BookDetails;
 import com.example.libraryapp.models.PeriodicalDetails;
 import com.example.libraryapp.models.MediaDetails;
 import com.example.libraryapp.models.Borrowing;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 
 public class SupabaseClient {
     private static SupabaseClient instance;
     private final OkHttpClient client;
     private final Gson gson;
     private final Gson borrowingGson; // Special Gson for borrowing operations
+    private final AppExecutors executors;
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final ParsedResponseMemo parsedResponses = new ParsedResponseMemo(SupabaseClient::copyParsed);
+    private final NetworkMetrics networkMetrics = new NetworkMetrics();
+    private final Cache httpCache;
+    private static final long HTTP_CACHE_SIZE_BYTES = 20L * 1024 * 1024;
     private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final String EMBEDDED_DETAILS_SELECT = "*,books(*),periodicals(*),media_resources(*)";
+    // A single-row read slower than this gets a duplicate request; roughly the p95 of a healthy lookup
+    private static final long HEDGE_DELAY_MILLIS = 400;
+    // Ids per bulk PATCH; keeps the in.(...) filter well under URL length limits
+    private static final int BULK_DECISION_CHUNK_SIZE = 100;
+    private static final int LOAN_PERIOD_DAYS = 7;
+    private static final int SEARCH_PAGE_SIZE = 20;
     private final String supabaseUrl;
     private final String supabaseKey;
 
     private SupabaseClient(Context context) {
+        // Disk cache for catalog reads; freshness per table comes from CachePolicyInterceptor
+        this(new Cache(new File(context.getCacheDir(), "supabase-http"), HTTP_CACHE_SIZE_BYTES), SupabaseConfig.getUrl());
+    }
+
+    // Package-private so unit tests can point the client at a local stand-in server; httpCache may be null
+    SupabaseClient(Cache httpCache, String supabaseUrl) {
+        // Body logging buffers and prints every payload, user records included; keep it to debug
+        // builds. Release builds rely on networkMetrics for timings instead
         HttpLoggingInterceptor logging = new HttpLoggingInterceptor();
-        logging.setLevel(HttpLoggingInterceptor.Level.BODY);
+        logging.setLevel(BuildConfig.DEBUG ? HttpLoggingInterceptor.Level.BODY : HttpLoggingInterceptor.Level.NONE);
+        
+        // Async calls are parked in the dispatcher rather than on our pools. Everything goes to one
+        // host over one multiplexed HTTP/2 connection, so the per-host limit is what caps concurrency;
+        // allow enough streams for a catalog page, its enrichment and a history load to overlap
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(64);
+        dispatcher.setMaxRequestsPerHost(32);
+        
+        // One host means one HTTP/2 connection plus a spare for HTTP/1.1 fallback. Keep it idle for
+        // longer than the default so moving between screens does not pay the TLS handshake again
+        ConnectionPool connectionPool = new ConnectionPool(2, 5, TimeUnit.MINUTES);
         
+        this.httpCache = httpCache;
+        
+        // Breaker outside retries, so one exhausted retry sequence counts as one failure;
+        // logging innermost, so every attempt is logged
         client = new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .connectionPool(connectionPool)
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .cache(httpCache)
+            .addInterceptor(new CircuitBreakerInterceptor())
+            .addInterceptor(new RetryInterceptor())
             .addInterceptor(logging)
+            .addNetworkInterceptor(new CachePolicyInterceptor())
+            .eventListenerFactory(networkMetrics)
             .connectTimeout(30, TimeUnit.SECONDS)
             .readTimeout(30, TimeUnit.SECONDS)
             .writeTimeout(30, TimeUnit.SECONDS)
             .build();
         
-        // Standard Gson instance with date handling
-        gson = new GsonBuilder()
-            .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
-            .create();
+        // Bounded pools instead of the common ForkJoinPool, which blocking calls would starve
+        executors = AppExecutors.getInstance();
+        
+        // Standard Gson instance; models and timestamps go through the hand-written adapters
+        gson = ModelTypeAdapters.newGson();
         
-        // Special Gson instance for borrowing operations with proper date formatting
-        borrowingGson = new GsonBuilder()
-            .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
-            .create();
+        // Special Gson instance for borrowing operations with the same model adapters
+        borrowingGson = ModelTypeAdapters.newGson();
         
-        this.supabaseUrl = "YOUR_SUPABASE_URL";
-        this.supabaseKey = "YOUR_SUPABASE_KEY";
+        this.supabaseUrl = supabaseUrl;
+        this.supabaseKey = SupabaseConfig.getAnonKey();
     }
 
     public static synchronized SupabaseClient getInstance(Context context) {
@@ -76,492 +131,543 @@ public class SupabaseClient {
         return instance;
     }
 
-    public CompletableFuture<User> loginUser(String username, String password) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // First get the user by username only
-                String url = SupabaseConfig.getUrl() + "/rest/v1/users?username=eq." + username + "&select=*";
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .addHeader("Prefer", "return=representation")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Login failed: HTTP " + response.code() + " - " + response.message());
-                    }
+    /**
+     * Opens a pooled connection to Supabase ahead of the first real request, so login does not pay
+     * DNS, TCP and TLS setup on its critical path. A HEAD on the REST root is cheap, bypasses the
+     * cache and needs no table permissions. Failures are only logged; the next request connects as usual.
+     */
+    public CompletableFuture<Void> warmUp() {
+        long start = System.nanoTime();
+        Request request = anonRequest(supabaseUrl + "/rest/v1/")
+            .cacheControl(CacheControl.FORCE_NETWORK)
+            .head()
+            .build();
 
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<User>>(){}.getType();
-                    List<User> users = gson.fromJson(responseBody, listType);
+        return this.<Void>executeAsync(request, response -> {
+            android.util.Log.d("SupabaseClient", "Connection warmed up in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                + "ms (" + response.protocol() + ", HTTP " + response.code() + ")");
+            return null;
+        }).exceptionally(e -> {
+            android.util.Log.w("SupabaseClient", "Connection warm-up failed: " + e.getMessage());
+            return null;
+        });
+    }
 
-                    if (users == null || users.isEmpty()) {
-                        throw new RuntimeException("Login failed: Invalid username or password");
-                    }
+    // Non-blocking request execution: completes from OkHttp's callback instead of holding a pool thread
+    private <T> CompletableFuture<T> executeAsync(Request request, CallFutures.ResponseHandler<T> handler) {
+        return CallFutures.enqueue(client, request, handler);
+    }
 
-                    User user = users.get(0);
-                    
-                    // Verify the password using our improved PasswordUtils
-                    if (!PasswordUtils.verifyPassword(password, user.getPassword())) {
-                        throw new RuntimeException("Login failed: Invalid username or password");
-                    }
+    // Like executeAsync, but identical concurrent GET/HEADs from the same call site share one network call
+    // and one parsed result. Only use it with handlers that depend on nothing but the response.
+    private <T> CompletableFuture<T> executeShared(Request request, CallFutures.ResponseHandler<T> handler) {
+        if (!"GET".equals(request.method()) && !"HEAD".equals(request.method())) {
+            return executeAsync(request, handler);
+        }
+        String key = singleFlightKey(request, handler);
+        // Cached responses reuse the objects parsed last time instead of decoding again
+        return singleFlight.execute(key, () -> executeAsync(request, response -> parsedResponses.parse(key, response, handler)));
+    }
 
-                    // Validate user role
-                    if (!user.isValidRole()) {
-                        throw new IllegalStateException("Access denied: Only students and faculty members can login");
-                    }
+    // executeShared for latency-sensitive single-row reads: a duplicate call is sent if the first
+    // has not answered within HEDGE_DELAY_MILLIS, and whichever answers first is used
+    private <T> CompletableFuture<T> executeHedged(Request request, CallFutures.ResponseHandler<T> handler) {
+        String key = singleFlightKey(request, handler);
+        return singleFlight.execute(key, () -> CallFutures.enqueueHedged(client, request, HEDGE_DELAY_MILLIS, executors.scheduler(),
+            response -> parsedResponses.parse(key, response, handler)));
+    }
 
-                    return user;
+    // Drop cached catalog responses after a write that changes resource rows
+    private void evictCatalogCache() {
+        if (httpCache == null) {
+            parsedResponses.clear();
+            return;
+        }
+        try {
+            java.util.Iterator<String> urls = httpCache.urls();
+            while (urls.hasNext()) {
+                String url = urls.next();
+                if (url.contains("/rest/v1/library_resources") || url.contains("/rest/v1/rpc/search_library_resources")) {
+                    urls.remove();
                 }
-            } catch (IOException e) {
-                throw new RuntimeException("Login failed: Network error - " + e.getMessage(), e);
-            } catch (Exception e) {
-                throw new RuntimeException("Login failed: " + e.getMessage(), e);
             }
-        });
+        } catch (IOException e) {
+            android.util.Log.w("SupabaseClient", "Failed to evict catalog cache: " + e.getMessage());
+        }
+        parsedResponses.clear();
+    }
+
+    // Method and normalized URL (query parameters sorted) plus credentials plus the handler's call site,
+    // so two call sites parsing the same URL differently never receive each other's result
+    static String singleFlightKey(Request request, CallFutures.ResponseHandler<?> handler) {
+        HttpUrl url = request.url();
+        List<String> names = new ArrayList<>(url.queryParameterNames());
+        java.util.Collections.sort(names);
+        
+        StringBuilder key = new StringBuilder()
+            .append(request.method()).append(' ')
+            .append(url.scheme()).append("://").append(url.host()).append(':').append(url.port())
+            .append(url.encodedPath());
+        char separator = '?';
+        for (String name : names) {
+            for (String value : url.queryParameterValues(name)) {
+                key.append(separator).append(name).append('=').append(value);
+                separator = '&';
+            }
+        }
+        return key.append('|').append(request.header("Authorization"))
+            .append('|').append(handler.getClass().getName())
+            .toString();
+    }
+
+    // Copies handed out by ParsedResponseMemo. Only catalog reads are cacheable, so resources, lists
+    // of them and their ServerTimed wrappers are all that need copying; other values are immutable
+    // or never memoized.
+    static Object copyParsed(Object value) {
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object element : (List<?>) value) {
+                copy.add(copyParsed(element));
+            }
+            return copy;
+        }
+        if (value instanceof LibraryResource) {
+            return new LibraryResource((LibraryResource) value);
+        }
+        if (value instanceof ServerTimed) {
+            ServerTimed<?> timed = (ServerTimed<?>) value;
+            return new ServerTimed<>(copyParsed(timed.getValue()), timed.getServerTime());
+        }
+        if (value instanceof JsonElement) {
+            return ((JsonElement) value).deepCopy();
+        }
+        return value;
+    }
+
+    // Number of requests served by joining an identical in-flight call
+    public long getSingleFlightHitCount() {
+        return singleFlight.getHitCount();
+    }
+
+    // Per-endpoint phase timings for every call made through this client
+    public NetworkMetrics getNetworkMetrics() {
+        return networkMetrics;
+    }
+
+    private Request.Builder anonRequest(String url) {
+        return new Request.Builder()
+            .url(url)
+            .addHeader("apikey", SupabaseConfig.getAnonKey())
+            .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
+            .addHeader("Content-Type", "application/json");
+    }
+
+    private Request.Builder serviceRequest(String url) {
+        return new Request.Builder()
+            .url(url)
+            .addHeader("apikey", SupabaseConfig.getServiceKey())
+            .addHeader("Authorization", "Bearer " + SupabaseConfig.getServiceKey())
+            .addHeader("Content-Type", "application/json");
+    }
+
+    public CompletableFuture<User> loginUser(String username, String password) {
+        // First get the user by username only
+        String url = supabaseUrl + "/rest/v1/users?username=eq." + username + "&select=*";
+        
+        Request request = anonRequest(url)
+            .addHeader("Prefer", "return=representation")
+            .get()
+            .build();
+
+        return executeAsync(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Login failed: HTTP " + response.code() + " - " + response.message());
+            }
+
+            List<User> users = JsonStreams.readList(gson, response.body(), User.class);
+
+            if (users == null || users.isEmpty()) {
+                throw new RuntimeException("Login failed: Invalid username or password");
+            }
+
+            return users.get(0);
+        }).thenApplyAsync(user -> {
+            // BCrypt is deliberately slow, so verify on the CPU pool rather than holding an I/O thread
+            if (!PasswordUtils.verifyPassword(password, user.getPassword())) {
+                throw new RuntimeException("Login failed: Invalid username or password");
+            }
+
+            // Validate user role
+            if (!user.isValidRole()) {
+                throw new IllegalStateException("Access denied: Only students and faculty members can login");
+            }
+
+            return user;
+        }, executors.cpu());
     }
 
     public CompletableFuture<User> getUserByUsername(String username) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/users?username=eq." + username + "&select=*";
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to get user: HTTP " + response.code() + " - " + response.message());
-                    }
+        String url = supabaseUrl + "/rest/v1/users?username=eq." + username + "&select=*";
+        Request request = anonRequest(url).get().build();
 
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<User>>(){}.getType();
-                    List<User> users = gson.fromJson(responseBody, listType);
+        return executeShared(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to get user: HTTP " + response.code() + " - " + response.message());
+            }
 
-                    if (users == null || users.isEmpty()) {
-                        throw new RuntimeException("User not found");
-                    }
+            List<User> users = JsonStreams.readList(gson, response.body(), User.class);
 
-                    return users.get(0);
-                }
-            } catch (IOException e) {
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
-                throw new RuntimeException("Error: " + e.getMessage(), e);
+            if (users == null || users.isEmpty()) {
+                throw new RuntimeException("User not found");
             }
+
+            return users.get(0);
         });
     }
 
     public CompletableFuture<List<User>> getAllUsers() {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/users?select=*";
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getServiceKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getServiceKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to get users: HTTP " + response.code() + " - " + response.message());
-                    }
+        String url = supabaseUrl + "/rest/v1/users?select=*";
+        Request request = serviceRequest(url).get().build();
 
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<User>>(){}.getType();
-                    return gson.fromJson(responseBody, listType);
-                }
-            } catch (IOException e) {
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
-                throw new RuntimeException("Error: " + e.getMessage(), e);
+        return executeShared(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to get users: HTTP " + response.code() + " - " + response.message());
             }
+
+            return JsonStreams.readList(gson, response.body(), User.class);
         });
     }
 
     public CompletableFuture<User> createUser(User user) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/users";
-                String json = gson.toJson(user);
-                
-                RequestBody body = RequestBody.create(json, JSON);
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getServiceKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getServiceKey())
-                    .addHeader("Content-Type", "application/json")
-                    .addHeader("Prefer", "return=representation")
-                    .post(body)
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to create user: HTTP " + response.code() + " - " + response.message());
-                    }
+        String url = supabaseUrl + "/rest/v1/users";
+        RequestBody body = RequestBody.create(gson.toJson(user), JSON);
+        Request request = serviceRequest(url)
+            .addHeader("Prefer", "return=representation")
+            .post(body)
+            .build();
 
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<User>>(){}.getType();
-                    List<User> users = gson.fromJson(responseBody, listType);
+        return executeAsync(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to create user: HTTP " + response.code() + " - " + response.message());
+            }
 
-                    if (users == null || users.isEmpty()) {
-                        throw new RuntimeException("Failed to create user");
-                    }
+            List<User> users = JsonStreams.readList(gson, response.body(), User.class);
 
-                    return users.get(0);
-                }
-            } catch (IOException e) {
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
-                throw new RuntimeException("Error: " + e.getMessage(), e);
+            if (users == null || users.isEmpty()) {
+                throw new RuntimeException("Failed to create user");
             }
+
+            return users.get(0);
         });
     }
 
     public CompletableFuture<Void> updateUser(User user) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/users?user_id=eq." + user.getUserId();
-                String json = gson.toJson(user);
-                
-                RequestBody body = RequestBody.create(json, JSON);
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getServiceKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getServiceKey())
-                    .addHeader("Content-Type", "application/json")
-                    .patch(body)
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to update user: HTTP " + response.code() + " - " + response.message());
-                    }
-                }
-            } catch (IOException e) {
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
-                throw new RuntimeException("Error: " + e.getMessage(), e);
+        String url = supabaseUrl + "/rest/v1/users?user_id=eq." + user.getUserId();
+        RequestBody body = RequestBody.create(gson.toJson(user), JSON);
+        Request request = serviceRequest(url).patch(body).build();
+
+        return this.<Void>executeAsync(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to update user: HTTP " + response.code() + " - " + response.message());
             }
+            return null;
         });
     }
 
     public CompletableFuture<Void> deleteUser(int userId) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/users?user_id=eq." + userId;
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getServiceKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getServiceKey())
-                    .addHeader("Content-Type", "application/json")
-                    .delete()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to delete user: HTTP " + response.code() + " - " + response.message());
-                    }
-                }
-            } catch (IOException e) {
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
-                throw new RuntimeException("Error: " + e.getMessage(), e);
+        String url = supabaseUrl + "/rest/v1/users?user_id=eq." + userId;
+        Request request = serviceRequest(url).delete().build();
+
+        return this.<Void>executeAsync(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to delete user: HTTP " + response.code() + " - " + response.message());
             }
+            return null;
         });
     }
 
     public CompletableFuture<List<LibraryResource>> getAllLibraryResources() {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // First, get basic library resources
-                String url = SupabaseConfig.getUrl() + "/rest/v1/library_resources?select=*";
-                
-                android.util.Log.d("SupabaseClient", "Fetching basic resources from URL: " + url);
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    android.util.Log.d("SupabaseClient", "Response code: " + response.code());
-                    
-                    if (!response.isSuccessful()) {
-                        String errorBody = response.body() != null ? response.body().string() : "No error body";
-                        android.util.Log.e("SupabaseClient", "Failed to get resources: HTTP " + response.code() + 
-                            " - " + response.message() + " - Body: " + errorBody);
-                        throw new RuntimeException("Failed to get resources: HTTP " + response.code() + " - " + response.message());
-                    }
+        RequestScope scope = new RequestScope();
+        // Pull each resource together with its category details in a single round trip
+        return scope.bind(scope.track(fetchResourcesWithEmbeddedDetails("")).thenCompose(resources -> resources != null
+            ? CompletableFuture.completedFuture(resources.getValue())
+            : scope.track(getAllLibraryResourcesEnrichedSeparately())
+        ).whenComplete((resources, e) -> {
+            if (e != null) {
+                android.util.Log.e("SupabaseClient", "Error: " + e.getMessage(), e);
+            }
+        }));
+    }
 
-                    String responseBody = response.body().string();
-                    android.util.Log.d("SupabaseClient", "Response body: " + responseBody);
-                    
-                    // Parse basic resources
-                    Type listType = new TypeToken<List<LibraryResource>>(){}.getType();
-                    List<LibraryResource> resources = gson.fromJson(responseBody, listType);
-                    
-                    if (resources == null) {
-                        android.util.Log.w("SupabaseClient", "Basic resources list is null");
-                        return new ArrayList<>();
-                    }
-                    
-                    android.util.Log.d("SupabaseClient", "Successfully fetched " + resources.size() + " basic resources");
-                    
-                    // Now fetch details for each category separately
-                    enrichResourcesWithDetails(resources);
-                    
-                    return resources;
+    // Keyset page of the catalog: resources with resource_id greater than afterResourceId, in id order.
+    // Pass 0 for the first page; an empty or short page means the catalog is exhausted.
+    // The server time says how current the page is, for CatalogSync's watermark.
+    public CompletableFuture<ServerTimed<List<LibraryResource>>> getLibraryResourcesPage(int afterResourceId, int pageSize) {
+        String keyset = "&resource_id=gt." + afterResourceId + "&order=resource_id.asc&limit=" + pageSize;
+        
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(fetchResourcesWithDetails(keyset)).whenComplete((page, e) -> {
+            if (e != null) {
+                android.util.Log.e("SupabaseClient", "Error getting resources page after " + afterResourceId + ": " + e.getMessage(), e);
+            } else {
+                android.util.Log.d("SupabaseClient", "Fetched page of " + page.getValue().size() + " resources after ID " + afterResourceId);
+            }
+        }));
+    }
+
+    // Delta sync: only resources whose updated_at is past the watermark, with their details
+    public CompletableFuture<ServerTimed<List<LibraryResource>>> getLibraryResourcesUpdatedSince(Date watermark) {
+        String delta = "&updated_at=gt." + Timestamps.format(watermark) + "&order=updated_at.asc";
+        
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(fetchResourcesWithDetails(delta)).whenComplete((changed, e) -> {
+            if (e != null) {
+                android.util.Log.e("SupabaseClient", "Error getting resources updated since " + watermark + ": " + e.getMessage(), e);
+            } else {
+                android.util.Log.d("SupabaseClient", "Fetched " + changed.getValue().size() + " resources updated since " + watermark);
+            }
+        }));
+    }
+
+    // Embedded select for the given filters, or basic rows plus per-category enrichment if the embed is rejected
+    private CompletableFuture<ServerTimed<List<LibraryResource>>> fetchResourcesWithDetails(String queryFilters) {
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(fetchResourcesWithEmbeddedDetails(queryFilters)).thenCompose(resources -> {
+            if (resources != null) {
+                return CompletableFuture.completedFuture(resources);
+            }
+            
+            String url = supabaseUrl + "/rest/v1/library_resources?select=*" + queryFilters;
+            Request request = anonRequest(url).get().build();
+            
+            return scope.track(executeShared(request, response -> {
+                if (!response.isSuccessful()) {
+                    throw new RuntimeException("Failed to get resources: HTTP " + response.code() + " - " + response.message());
                 }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error: " + e.getMessage(), e);
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
-                android.util.Log.e("SupabaseClient", "Error: " + e.getMessage(), e);
-                throw new RuntimeException("Error: " + e.getMessage(), e);
+                
+                return new ServerTimed<>(JsonStreams.readList(gson, response.body(), LibraryResource.class),
+                    ServerTimed.serverTimeOf(response));
+            })).thenCompose(basic -> scope.track(enrichResourcesWithDetailsAsync(basic.getValue())).thenApply(v -> basic));
+        }));
+    }
+
+    // Completes with null when PostgREST rejects the embed, so callers can fall back to separate enrichment
+    private CompletableFuture<ServerTimed<List<LibraryResource>>> fetchResourcesWithEmbeddedDetails(String queryFilters) {
+        String url = supabaseUrl + "/rest/v1/library_resources?select=" + EMBEDDED_DETAILS_SELECT + queryFilters;
+        
+        android.util.Log.d("SupabaseClient", "Fetching resources with embedded details from URL: " + url);
+        
+        Request request = anonRequest(url).get().build();
+
+        return executeShared(request, response -> {
+            if (response.code() == 400) {
+                // PostgREST rejects the embed when a relationship is missing from its schema cache
+                String errorBody = response.body() != null ? response.body().string() : "No error body";
+                android.util.Log.w("SupabaseClient", "Embedded select rejected, falling back to separate enrichment: " + errorBody);
+                return null;
+            }
+            
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to get resources: HTTP " + response.code() + " - " + response.message());
             }
+
+            List<LibraryResource> resources = parseResourcesWithEmbeddedDetails(response.body());
+            
+            android.util.Log.d("SupabaseClient", "Successfully fetched " + resources.size() + " resources with embedded details");
+            return new ServerTimed<>(resources, ServerTimed.serverTimeOf(response));
         });
     }
 
+    // LibraryResource's adapter reads the books/periodicals/media_resources embeds directly
+    private List<LibraryResource> parseResourcesWithEmbeddedDetails(ResponseBody body) throws IOException {
+        return JsonStreams.readList(gson, body, LibraryResource.class);
+    }
+
+    // Fallback for getAllLibraryResources: basic resources first, then one detail request per category
+    private CompletableFuture<List<LibraryResource>> getAllLibraryResourcesEnrichedSeparately() {
+        // First, get basic library resources
+        String url = supabaseUrl + "/rest/v1/library_resources?select=*";
+        
+        android.util.Log.d("SupabaseClient", "Fetching basic resources from URL: " + url);
+        
+        Request request = anonRequest(url).get().build();
+
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(executeShared(request, response -> {
+            android.util.Log.d("SupabaseClient", "Response code: " + response.code());
+            
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "No error body";
+                android.util.Log.e("SupabaseClient", "Failed to get resources: HTTP " + response.code() + 
+                    " - " + response.message() + " - Body: " + errorBody);
+                throw new RuntimeException("Failed to get resources: HTTP " + response.code() + " - " + response.message());
+            }
+
+            // Parse basic resources
+            List<LibraryResource> resources = JsonStreams.readList(gson, response.body(), LibraryResource.class);
+            
+            if (resources == null) {
+                android.util.Log.w("SupabaseClient", "Basic resources list is null");
+                return new ArrayList<LibraryResource>();
+            }
+            
+            android.util.Log.d("SupabaseClient", "Successfully fetched " + resources.size() + " basic resources");
+            return resources;
+        })).thenCompose(resources ->
+            // Now fetch details for each category separately
+            scope.track(enrichResourcesWithDetailsAsync(resources)).thenApply(v -> resources)
+        ).whenComplete((resources, e) -> {
+            if (e != null) {
+                android.util.Log.e("SupabaseClient", "Error: " + e.getMessage(), e);
+            }
+        }));
+    }
+
     public CompletableFuture<LibraryResource> getLibraryResourceById(int resourceId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/library_resources?resource_id=eq." + resourceId + "&select=*";
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to get resource: HTTP " + response.code() + " - " + response.message());
-                    }
+        String url = supabaseUrl + "/rest/v1/library_resources?resource_id=eq." + resourceId + "&select=*";
+        Request request = anonRequest(url).get().build();
 
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<LibraryResource>>(){}.getType();
-                    List<LibraryResource> resources = gson.fromJson(responseBody, listType);
+        // Hedged: the borrow flow waits on this lookup, so a stalled connection should not set its latency
+        return executeHedged(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to get resource: HTTP " + response.code() + " - " + response.message());
+            }
 
-                    if (resources == null || resources.isEmpty()) {
-                        throw new RuntimeException("Resource not found");
-                    }
+            List<LibraryResource> resources = JsonStreams.readList(gson, response.body(), LibraryResource.class);
 
-                    return resources.get(0);
-                }
-            } catch (IOException e) {
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
-                throw new RuntimeException("Error: " + e.getMessage(), e);
+            if (resources == null || resources.isEmpty()) {
+                throw new RuntimeException("Resource not found");
             }
+
+            return resources.get(0);
         });
     }
 
     public CompletableFuture<List<LibraryResource>> searchLibraryResources(String query) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/library_resources?title=ilike.*" + query + "*&select=*";
-                
-                android.util.Log.d("SupabaseClient", "Searching resources with query: " + query);
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Search failed: HTTP " + response.code() + " - " + response.message());
-                    }
+        return searchLibraryResources(query, null, 0, SEARCH_PAGE_SIZE);
+    }
 
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<LibraryResource>>(){}.getType();
-                    List<LibraryResource> resources = gson.fromJson(responseBody, listType);
-                    
-                    if (resources == null) {
-                        return new ArrayList<>();
-                    }
-                    
-                    android.util.Log.d("SupabaseClient", "Found " + resources.size() + " resources matching query: " + query);
-                    
-                    // Enrich search results with details
-                    enrichResourcesWithDetails(resources);
-                    
-                    return resources;
-                }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error during search: " + e.getMessage(), e);
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
+    /**
+     * Ranked search over titles, authors, publishers, accession numbers and ISBN/ISSN (with or
+     * without hyphens) through the search_library_resources function, which is backed by
+     * full-text and trigram indexes. Details come embedded. Pass a null category for all of them.
+     * Falls back to a title match if the function is not deployed.
+     */
+    public CompletableFuture<List<LibraryResource>> searchLibraryResources(String query, String category, int offset, int limit) {
+        android.util.Log.d("SupabaseClient", "Searching resources with query: " + query);
+
+        HttpUrl.Builder url = HttpUrl.get(supabaseUrl + "/rest/v1/rpc/search_library_resources").newBuilder()
+            .addQueryParameter("p_query", query)
+            .addQueryParameter("p_limit", String.valueOf(limit))
+            .addQueryParameter("p_offset", String.valueOf(offset))
+            .addQueryParameter("select", EMBEDDED_DETAILS_SELECT);
+        if (category != null) {
+            url.addQueryParameter("p_category", category);
+        }
+        Request request = anonRequest(url.build().toString()).get().build();
+
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(executeShared(request, response -> {
+            if (response.code() == 404) {
+                android.util.Log.w("SupabaseClient", "search_library_resources RPC not available, matching titles only");
+                return null;
+            }
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "";
+                throw new RuntimeException(postgrestErrorMessage(errorBody, "Search failed: HTTP " + response.code() + " - " + response.message()));
+            }
+
+            List<LibraryResource> resources = parseResourcesWithEmbeddedDetails(response.body());
+            android.util.Log.d("SupabaseClient", "Found " + resources.size() + " resources matching query: " + query);
+            return resources;
+        })).thenCompose(resources -> resources != null
+            ? CompletableFuture.completedFuture(resources)
+            : scope.track(searchResourceTitles(query, category, offset, limit))
+        ).whenComplete((resources, e) -> {
+            if (e != null) {
                 android.util.Log.e("SupabaseClient", "Error during search: " + e.getMessage(), e);
-                throw new RuntimeException("Error: " + e.getMessage(), e);
             }
-        });
+        }));
     }
 
-    // Category-specific methods using simpler approach
-    public CompletableFuture<List<LibraryResource>> getBookResources() {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Fetch basic book resources
-                String url = SupabaseConfig.getUrl() + "/rest/v1/library_resources?category=eq.book&select=*";
-                
-                android.util.Log.d("SupabaseClient", "Fetching basic books from URL: " + url);
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to get books: HTTP " + response.code() + " - " + response.message());
-                    }
+    // Fallback for searchLibraryResources: unranked title substring match, details embedded
+    private CompletableFuture<List<LibraryResource>> searchResourceTitles(String query, String category, int offset, int limit) {
+        HttpUrl.Builder url = HttpUrl.get(supabaseUrl + "/rest/v1/library_resources").newBuilder()
+            .addQueryParameter("select", EMBEDDED_DETAILS_SELECT)
+            .addQueryParameter("title", "ilike.*" + escapeLikePattern(query) + "*")
+            .addQueryParameter("order", "title.asc,resource_id.asc")
+            .addQueryParameter("limit", String.valueOf(limit))
+            .addQueryParameter("offset", String.valueOf(offset));
+        if (category != null) {
+            url.addQueryParameter("category", "eq." + category);
+        }
+        Request request = anonRequest(url.build().toString()).get().build();
 
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<LibraryResource>>(){}.getType();
-                    List<LibraryResource> resources = gson.fromJson(responseBody, listType);
-                    
-                    if (resources == null) {
-                        return new ArrayList<>();
-                    }
-                    
-                    android.util.Log.d("SupabaseClient", "Successfully retrieved " + resources.size() + " basic book resources");
-                    
-                    // Enrich with book details
-                    enrichBooksWithDetails(resources);
-                    
-                    return resources;
-                }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error getting books: " + e.getMessage(), e);
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
-                android.util.Log.e("SupabaseClient", "Error getting books: " + e.getMessage(), e);
-                throw new RuntimeException("Error: " + e.getMessage(), e);
+        return executeShared(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Search failed: HTTP " + response.code() + " - " + response.message());
             }
+            return parseResourcesWithEmbeddedDetails(response.body());
         });
     }
 
-    public CompletableFuture<List<LibraryResource>> getPeriodicalResources() {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Fetch basic periodical resources
-                String url = SupabaseConfig.getUrl() + "/rest/v1/library_resources?category=eq.periodical&select=*";
-                
-                android.util.Log.d("SupabaseClient", "Fetching basic periodicals from URL: " + url);
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to get periodicals: HTTP " + response.code() + " - " + response.message());
-                    }
+    // User input is matched literally: LIKE wildcards are escaped and PostgREST's * wildcard dropped
+    private static String escapeLikePattern(String query) {
+        return query.replace("\\", "\\\\")
+            .replace("%", "\\%")
+            .replace("_", "\\_")
+            .replace("*", "");
+    }
 
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<LibraryResource>>(){}.getType();
-                    List<LibraryResource> resources = gson.fromJson(responseBody, listType);
-                    
-                    if (resources == null) {
-                        return new ArrayList<>();
-                    }
-                    
-                    android.util.Log.d("SupabaseClient", "Successfully retrieved " + resources.size() + " basic periodical resources");
-                    
-                    // Enrich with periodical details
-                    enrichPeriodicalsWithDetails(resources);
-                    
-                    return resources;
-                }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error getting periodicals: " + e.getMessage(), e);
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
-                android.util.Log.e("SupabaseClient", "Error getting periodicals: " + e.getMessage(), e);
-                throw new RuntimeException("Error: " + e.getMessage(), e);
-            }
-        });
+    // Category-specific methods using simpler approach
+    public CompletableFuture<List<LibraryResource>> getBookResources() {
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(getResourcesByCategory("book", "books")).thenCompose(resources ->
+            scope.track(enrichBooksWithDetails(resources)).thenApply(v -> resources)));
+    }
+
+    public CompletableFuture<List<LibraryResource>> getPeriodicalResources() {
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(getResourcesByCategory("periodical", "periodicals")).thenCompose(resources ->
+            scope.track(enrichPeriodicalsWithDetails(resources)).thenApply(v -> resources)));
     }
 
     public CompletableFuture<List<LibraryResource>> getMediaResources() {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                // Fetch basic media resources
-                String url = SupabaseConfig.getUrl() + "/rest/v1/library_resources?category=eq.media&select=*";
-                
-                android.util.Log.d("SupabaseClient", "Fetching basic media from URL: " + url);
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to get media: HTTP " + response.code() + " - " + response.message());
-                    }
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(getResourcesByCategory("media", "media")).thenCompose(resources ->
+            scope.track(enrichMediaWithDetails(resources)).thenApply(v -> resources)));
+    }
 
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<LibraryResource>>(){}.getType();
-                    List<LibraryResource> resources = gson.fromJson(responseBody, listType);
-                    
-                    if (resources == null) {
-                        return new ArrayList<>();
-                    }
-                    
-                    android.util.Log.d("SupabaseClient", "Successfully retrieved " + resources.size() + " basic media resources");
-                    
-                    // Enrich with media details
-                    enrichMediaWithDetails(resources);
-                    
-                    return resources;
-                }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error getting media: " + e.getMessage(), e);
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
-                android.util.Log.e("SupabaseClient", "Error getting media: " + e.getMessage(), e);
-                throw new RuntimeException("Error: " + e.getMessage(), e);
+    // Fetch basic resources of one category; the caller attaches the matching details
+    private CompletableFuture<List<LibraryResource>> getResourcesByCategory(String category, String label) {
+        String url = supabaseUrl + "/rest/v1/library_resources?category=eq." + category + "&select=*";
+        
+        android.util.Log.d("SupabaseClient", "Fetching basic " + label + " from URL: " + url);
+        
+        Request request = anonRequest(url).get().build();
+
+        return executeShared(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to get " + label + ": HTTP " + response.code() + " - " + response.message());
+            }
+
+            List<LibraryResource> resources = JsonStreams.readList(gson, response.body(), LibraryResource.class);
+            
+            if (resources == null) {
+                return new ArrayList<LibraryResource>();
+            }
+            
+            android.util.Log.d("SupabaseClient", "Successfully retrieved " + resources.size() + " basic " + category + " resources");
+            return resources;
+        }).whenComplete((resources, e) -> {
+            if (e != null) {
+                android.util.Log.e("SupabaseClient", "Error getting " + label + ": " + e.getMessage(), e);
             }
         });
     }
 
-    // Helper method to enrich resources with details for all categories
-    private void enrichResourcesWithDetails(List<LibraryResource> resources) {
+    // Enriches resources with details for all categories, one request per category in parallel
+    private CompletableFuture<Void> enrichResourcesWithDetailsAsync(List<LibraryResource> resources) {
         // Group resources by category for batch processing
         List<LibraryResource> books = new ArrayList<>();
         List<LibraryResource> periodicals = new ArrayList<>();
@@ -578,190 +684,114 @@ public class SupabaseClient {
             }
         }
         
-        // Enrich each category separately
-        if (!books.isEmpty()) {
-            enrichBooksWithDetails(books);
-        }
-        if (!periodicals.isEmpty()) {
-            enrichPeriodicalsWithDetails(periodicals);
-        }
-        if (!media.isEmpty()) {
-            enrichMediaWithDetails(media);
-        }
+        // All three requests are in flight at once; none of them holds a pool thread while waiting
+        RequestScope scope = new RequestScope();
+        return scope.bind(CompletableFuture.allOf(
+                scope.track(enrichBooksWithDetails(books)),
+                scope.track(enrichPeriodicalsWithDetails(periodicals)),
+                scope.track(enrichMediaWithDetails(media)))
+            .thenRun(() -> android.util.Log.d("SupabaseClient", "Completed asynchronous enrichment for all categories")));
     }
 
-    // Asynchronous version for better performance
-    private CompletableFuture<Void> enrichResourcesWithDetailsAsync(List<LibraryResource> resources) {
-        return CompletableFuture.runAsync(() -> {
-            // Group resources by category for batch processing
-            List<LibraryResource> books = new ArrayList<>();
-            List<LibraryResource> periodicals = new ArrayList<>();
-            List<LibraryResource> media = new ArrayList<>();
-            
-            for (LibraryResource resource : resources) {
-                String category = resource.getCategory();
-                if ("book".equals(category)) {
-                    books.add(resource);
-                } else if ("periodical".equals(category)) {
-                    periodicals.add(resource);
-                } else if ("media".equals(category)) {
-                    media.add(resource);
-                }
-            }
-            
-            // Create futures for parallel processing
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            
-            if (!books.isEmpty()) {
-                futures.add(CompletableFuture.runAsync(() -> enrichBooksWithDetails(books)));
-            }
-            if (!periodicals.isEmpty()) {
-                futures.add(CompletableFuture.runAsync(() -> enrichPeriodicalsWithDetails(periodicals)));
-            }
-            if (!media.isEmpty()) {
-                futures.add(CompletableFuture.runAsync(() -> enrichMediaWithDetails(media)));
-            }
-            
-            // Wait for all enrichment operations to complete
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            
-            android.util.Log.d("SupabaseClient", "Completed asynchronous enrichment for all categories");
-        });
+    private static String joinResourceIds(List<LibraryResource> resources) {
+        return resources.stream()
+            .map(resource -> String.valueOf(resource.getResourceId()))
+            .collect(java.util.stream.Collectors.joining(","));
     }
 
     // Enrich books with their specific details
-    private void enrichBooksWithDetails(List<LibraryResource> books) {
-        try {
-            // Build resource IDs for batch query
-            List<Integer> resourceIds = books.stream()
-                .map(LibraryResource::getResourceId)
-                .collect(java.util.stream.Collectors.toList());
-            
-            if (resourceIds.isEmpty()) return;
-            
-            // Create IN query for batch fetching
-            String idsParam = resourceIds.stream()
-                .map(String::valueOf)
-                .collect(java.util.stream.Collectors.joining(","));
-            
-            String url = SupabaseConfig.getUrl() + "/rest/v1/books?resource_id=in.(" + idsParam + ")&select=*";
-            
-            android.util.Log.d("SupabaseClient", "Fetching book details from URL: " + url);
-            
-            Request request = new Request.Builder()
-                .url(url)
-                .addHeader("apikey", SupabaseConfig.getAnonKey())
-                .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                .addHeader("Content-Type", "application/json")
-                .get()
-                .build();
-
-            try (Response response = client.newCall(request).execute()) {
-                if (response.isSuccessful()) {
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<BookDetails>>(){}.getType();
-                    List<BookDetails> bookDetailsList = gson.fromJson(responseBody, listType);
-                    
-                    if (bookDetailsList != null) {
-                        // Match book details to resources by resource_id
-                        attachBookDetailsToResources(books, bookDetailsList);
-                        android.util.Log.d("SupabaseClient", "Successfully enriched " + books.size() + " books with details");
-                    }
-                } else {
-                    android.util.Log.w("SupabaseClient", "Failed to fetch book details: HTTP " + response.code());
+    private CompletableFuture<Void> enrichBooksWithDetails(List<LibraryResource> books) {
+        if (books.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        // Create IN query for batch fetching
+        String url = supabaseUrl + "/rest/v1/books?resource_id=in.(" + joinResourceIds(books) + ")&select=*";
+        
+        android.util.Log.d("SupabaseClient", "Fetching book details from URL: " + url);
+        
+        Request request = anonRequest(url).get().build();
+
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(this.<Void>executeAsync(request, response -> {
+            if (response.isSuccessful()) {
+                List<BookDetails> bookDetailsList = JsonStreams.readList(gson, response.body(), BookDetails.class);
+                
+                if (bookDetailsList != null) {
+                    // Match book details to resources by resource_id
+                    attachBookDetailsToResources(books, bookDetailsList);
+                    android.util.Log.d("SupabaseClient", "Successfully enriched " + books.size() + " books with details");
                 }
+            } else {
+                android.util.Log.w("SupabaseClient", "Failed to fetch book details: HTTP " + response.code());
             }
-        } catch (Exception e) {
+            return null;
+        })).exceptionally(e -> {
             android.util.Log.e("SupabaseClient", "Error enriching books with details: " + e.getMessage(), e);
-        }
+            return null;
+        }));
     }
 
     // Enrich periodicals with their specific details
-    private void enrichPeriodicalsWithDetails(List<LibraryResource> periodicals) {
-        try {
-            List<Integer> resourceIds = periodicals.stream()
-                .map(LibraryResource::getResourceId)
-                .collect(java.util.stream.Collectors.toList());
-            
-            if (resourceIds.isEmpty()) return;
-            
-            String idsParam = resourceIds.stream()
-                .map(String::valueOf)
-                .collect(java.util.stream.Collectors.joining(","));
-            
-            String url = SupabaseConfig.getUrl() + "/rest/v1/periodicals?resource_id=in.(" + idsParam + ")&select=*";
-            
-            android.util.Log.d("SupabaseClient", "Fetching periodical details from URL: " + url);
-            
-            Request request = new Request.Builder()
-                .url(url)
-                .addHeader("apikey", SupabaseConfig.getAnonKey())
-                .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                .addHeader("Content-Type", "application/json")
-                .get()
-                .build();
-
-            try (Response response = client.newCall(request).execute()) {
-                if (response.isSuccessful()) {
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<PeriodicalDetails>>(){}.getType();
-                    List<PeriodicalDetails> periodicalDetailsList = gson.fromJson(responseBody, listType);
-                    
-                    if (periodicalDetailsList != null) {
-                        attachPeriodicalDetailsToResources(periodicals, periodicalDetailsList);
-                        android.util.Log.d("SupabaseClient", "Successfully enriched " + periodicals.size() + " periodicals with details");
-                    }
-                } else {
-                    android.util.Log.w("SupabaseClient", "Failed to fetch periodical details: HTTP " + response.code());
+    private CompletableFuture<Void> enrichPeriodicalsWithDetails(List<LibraryResource> periodicals) {
+        if (periodicals.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        String url = supabaseUrl + "/rest/v1/periodicals?resource_id=in.(" + joinResourceIds(periodicals) + ")&select=*";
+        
+        android.util.Log.d("SupabaseClient", "Fetching periodical details from URL: " + url);
+        
+        Request request = anonRequest(url).get().build();
+
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(this.<Void>executeAsync(request, response -> {
+            if (response.isSuccessful()) {
+                List<PeriodicalDetails> periodicalDetailsList = JsonStreams.readList(gson, response.body(), PeriodicalDetails.class);
+                
+                if (periodicalDetailsList != null) {
+                    attachPeriodicalDetailsToResources(periodicals, periodicalDetailsList);
+                    android.util.Log.d("SupabaseClient", "Successfully enriched " + periodicals.size() + " periodicals with details");
                 }
+            } else {
+                android.util.Log.w("SupabaseClient", "Failed to fetch periodical details: HTTP " + response.code());
             }
-        } catch (Exception e) {
+            return null;
+        })).exceptionally(e -> {
             android.util.Log.e("SupabaseClient", "Error enriching periodicals with details: " + e.getMessage(), e);
-        }
+            return null;
+        }));
     }
 
     // Enrich media with their specific details
-    private void enrichMediaWithDetails(List<LibraryResource> media) {
-        try {
-            List<Integer> resourceIds = media.stream()
-                .map(LibraryResource::getResourceId)
-                .collect(java.util.stream.Collectors.toList());
-            
-            if (resourceIds.isEmpty()) return;
-            
-            String idsParam = resourceIds.stream()
-                .map(String::valueOf)
-                .collect(java.util.stream.Collectors.joining(","));
-            
-            String url = SupabaseConfig.getUrl() + "/rest/v1/media_resources?resource_id=in.(" + idsParam + ")&select=*";
-            
-            android.util.Log.d("SupabaseClient", "Fetching media details from URL: " + url);
-            
-            Request request = new Request.Builder()
-                .url(url)
-                .addHeader("apikey", SupabaseConfig.getAnonKey())
-                .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                .addHeader("Content-Type", "application/json")
-                .get()
-                .build();
-
-            try (Response response = client.newCall(request).execute()) {
-                if (response.isSuccessful()) {
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<MediaDetails>>(){}.getType();
-                    List<MediaDetails> mediaDetailsList = gson.fromJson(responseBody, listType);
-                    
-                    if (mediaDetailsList != null) {
-                        attachMediaDetailsToResources(media, mediaDetailsList);
-                        android.util.Log.d("SupabaseClient", "Successfully enriched " + media.size() + " media with details");
-                    }
-                } else {
-                    android.util.Log.w("SupabaseClient", "Failed to fetch media details: HTTP " + response.code());
+    private CompletableFuture<Void> enrichMediaWithDetails(List<LibraryResource> media) {
+        if (media.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        String url = supabaseUrl + "/rest/v1/media_resources?resource_id=in.(" + joinResourceIds(media) + ")&select=*";
+        
+        android.util.Log.d("SupabaseClient", "Fetching media details from URL: " + url);
+        
+        Request request = anonRequest(url).get().build();
+
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(this.<Void>executeAsync(request, response -> {
+            if (response.isSuccessful()) {
+                List<MediaDetails> mediaDetailsList = JsonStreams.readList(gson, response.body(), MediaDetails.class);
+                
+                if (mediaDetailsList != null) {
+                    attachMediaDetailsToResources(media, mediaDetailsList);
+                    android.util.Log.d("SupabaseClient", "Successfully enriched " + media.size() + " media with details");
                 }
+            } else {
+                android.util.Log.w("SupabaseClient", "Failed to fetch media details: HTTP " + response.code());
             }
-        } catch (Exception e) {
+            return null;
+        })).exceptionally(e -> {
             android.util.Log.e("SupabaseClient", "Error enriching media with details: " + e.getMessage(), e);
-        }
+            return null;
+        }));
     }
 
     // Helper methods to attach details to resources
@@ -824,718 +854,706 @@ public class SupabaseClient {
 
     // Lazy loading methods - load basic resources first, details on demand
     public CompletableFuture<List<LibraryResource>> getAllLibraryResourcesBasic() {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/library_resources?select=*";
-                
-                android.util.Log.d("SupabaseClient", "Fetching basic resources only (lazy loading)");
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to get basic resources: HTTP " + response.code() + " - " + response.message());
-                    }
+        String url = supabaseUrl + "/rest/v1/library_resources?select=*";
+        
+        android.util.Log.d("SupabaseClient", "Fetching basic resources only (lazy loading)");
+        
+        Request request = anonRequest(url).get().build();
 
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<LibraryResource>>(){}.getType();
-                    List<LibraryResource> resources = gson.fromJson(responseBody, listType);
-                    
-                    android.util.Log.d("SupabaseClient", "Successfully fetched " + (resources != null ? resources.size() : 0) + " basic resources");
-                    return resources != null ? resources : new ArrayList<>();
-                }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error: " + e.getMessage(), e);
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
+        return executeShared(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to get basic resources: HTTP " + response.code() + " - " + response.message());
+            }
+
+            List<LibraryResource> resources = JsonStreams.readList(gson, response.body(), LibraryResource.class);
+            
+            android.util.Log.d("SupabaseClient", "Successfully fetched " + (resources != null ? resources.size() : 0) + " basic resources");
+            return resources != null ? resources : new ArrayList<LibraryResource>();
+        }).whenComplete((resources, e) -> {
+            if (e != null) {
                 android.util.Log.e("SupabaseClient", "Error: " + e.getMessage(), e);
-                throw new RuntimeException("Error: " + e.getMessage(), e);
             }
         });
     }
 
-    // Load details for a specific resource on-demand
-    public CompletableFuture<LibraryResource> enrichResourceWithDetails(LibraryResource resource) {
-        return CompletableFuture.supplyAsync(() -> {
-            if (resource == null || resource.getCategory() == null) {
-                return resource;
+    // Streams basic resources to the consumer as each one is decoded; completes with the number delivered.
+    // The consumer runs on OkHttp's callback thread, so post to the main thread before touching views.
+    public CompletableFuture<Integer> streamAllLibraryResourcesBasic(java.util.function.Consumer<? super LibraryResource> onResource) {
+        String url = supabaseUrl + "/rest/v1/library_resources?select=*";
+        Request request = anonRequest(url).get().build();
+
+        return executeAsync(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to get basic resources: HTTP " + response.code() + " - " + response.message());
             }
-            
-            String category = resource.getCategory();
-            List<LibraryResource> singleResourceList = java.util.Arrays.asList(resource);
-            
-            switch (category) {
-                case "book":
-                    enrichBooksWithDetails(singleResourceList);
-                    break;
-                case "periodical":
-                    enrichPeriodicalsWithDetails(singleResourceList);
-                    break;
-                case "media":
-                    enrichMediaWithDetails(singleResourceList);
-                    break;
-                default:
-                    android.util.Log.w("SupabaseClient", "Unknown category for resource enrichment: " + category);
-                    break;
+
+            int count = JsonStreams.forEach(gson, response.body(), LibraryResource.class, onResource);
+            android.util.Log.d("SupabaseClient", "Streamed " + count + " basic resources");
+            return count;
+        }).whenComplete((count, e) -> {
+            if (e != null) {
+                android.util.Log.e("SupabaseClient", "Error streaming resources: " + e.getMessage(), e);
             }
-            
-            return resource;
         });
     }
 
+    // Load details for a specific resource on-demand
+    public CompletableFuture<LibraryResource> enrichResourceWithDetails(LibraryResource resource) {
+        if (resource == null || resource.getCategory() == null) {
+            return CompletableFuture.completedFuture(resource);
+        }
+        
+        String category = resource.getCategory();
+        List<LibraryResource> singleResourceList = java.util.Arrays.asList(resource);
+        CompletableFuture<Void> enrichment;
+        
+        switch (category) {
+            case "book":
+                enrichment = enrichBooksWithDetails(singleResourceList);
+                break;
+            case "periodical":
+                enrichment = enrichPeriodicalsWithDetails(singleResourceList);
+                break;
+            case "media":
+                enrichment = enrichMediaWithDetails(singleResourceList);
+                break;
+            default:
+                android.util.Log.w("SupabaseClient", "Unknown category for resource enrichment: " + category);
+                enrichment = CompletableFuture.completedFuture(null);
+                break;
+        }
+        
+        return enrichment.thenApply(v -> resource);
+    }
+
     // Batch enrich multiple resources on-demand
     public CompletableFuture<List<LibraryResource>> enrichResourcesWithDetailsOnDemand(List<LibraryResource> resources) {
-        return CompletableFuture.supplyAsync(() -> {
-            enrichResourcesWithDetails(resources);
-            return resources;
-        });
+        return enrichResourcesWithDetailsAsync(resources).thenApply(v -> resources);
     }
 
     // Borrowing request methods with proper validation
     public CompletableFuture<Borrowing> createBorrowingRequest(int userId, int resourceId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                android.util.Log.d("SupabaseClient", "Starting borrowing request validation for user: " + userId + ", resource: " + resourceId);
-                
-                // Step 1: Check if the resource exists and is available
-                CompletableFuture<LibraryResource> resourceFuture = getLibraryResourceById(resourceId);
-                LibraryResource resource = resourceFuture.join();
-                
-                if (resource == null) {
-                    throw new RuntimeException("Resource not found");
-                }
-                
-                android.util.Log.d("SupabaseClient", "Resource found: " + resource.getTitle() + " with status: " + resource.getStatus());
-                
-                if (!"available".equalsIgnoreCase(resource.getStatus())) {
-                    throw new RuntimeException("This resource is not available for borrowing. Current status: " + resource.getStatus());
-                }
-                
-                // Step 2: Check if user already has a pending request for this resource
-                CompletableFuture<Boolean> existingRequestFuture = checkExistingBorrowingRequest(userId, resourceId);
-                Boolean hasExistingRequest = existingRequestFuture.join();
-                
-                if (hasExistingRequest) {
-                    throw new RuntimeException("You already have a pending request for this resource");
+        return createBorrowingRequest(userId, resourceId, UUID.randomUUID().toString());
+    }
+
+    // Callers that may retry pass the same idempotencyKey on every attempt; a repeat returns the
+    // borrowing the first attempt created instead of inserting a duplicate
+    public CompletableFuture<Borrowing> createBorrowingRequest(int userId, int resourceId, String idempotencyKey) {
+        android.util.Log.d("SupabaseClient", "Creating borrowing request for user: " + userId + ", resource: " + resourceId + ", key: " + idempotencyKey);
+        
+        // One round trip: request_borrow validates, inserts and marks the resource borrowed in a single
+        // transaction, so two users cannot both take the same item between the checks and the write
+        return requestBorrowViaRpc(userId, resourceId, idempotencyKey).thenCompose(borrowing -> borrowing != null
+            ? CompletableFuture.completedFuture(borrowing)
+            : createBorrowingRequestWithChecks(userId, resourceId, idempotencyKey)
+        ).whenComplete((borrowing, e) -> {
+            if (e != null) {
+                android.util.Log.e("SupabaseClient", "Error creating borrowing request: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    // Completes with null when the function is not deployed, so the caller can fall back to client-side checks
+    private CompletableFuture<Borrowing> requestBorrowViaRpc(int userId, int resourceId, String idempotencyKey) {
+        JsonObject params = new JsonObject();
+        params.addProperty("p_user_id", userId);
+        params.addProperty("p_resource_id", resourceId);
+        params.addProperty("p_idempotency_key", idempotencyKey);
+        
+        Request request = anonRequest(supabaseUrl + "/rest/v1/rpc/request_borrow")
+            .post(RequestBody.create(params.toString(), JSON))
+            .build();
+
+        return executeAsync(request, response -> {
+            if (response.code() == 404) {
+                android.util.Log.w("SupabaseClient", "request_borrow RPC not available, using client-side checks");
+                return null;
+            }
+            
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "";
+                // Validation failures are raised by the function; PostgREST passes the message through
+                throw new RuntimeException(postgrestErrorMessage(errorBody, "Failed to create borrowing request (HTTP " + response.code() + ")"));
+            }
+            
+            // A function returning a single row comes back as an object; tolerate an array too
+            Borrowing borrowing = JsonStreams.readFirst(borrowingGson, response.body(), Borrowing.class);
+            if (borrowing == null) {
+                throw new RuntimeException("Failed to create borrowing request - no data returned");
+            }
+            android.util.Log.d("SupabaseClient", "Successfully created borrowing with ID: " + borrowing.getBorrowingId());
+            
+            // The function flipped the resource to borrowed
+            evictCatalogCache();
+            return borrowing;
+        });
+    }
+
+    private static String postgrestErrorMessage(String errorBody, String fallback) {
+        try {
+            JsonElement errorJson = JsonParser.parseString(errorBody);
+            if (errorJson.isJsonObject()) {
+                JsonObject errorObj = errorJson.getAsJsonObject();
+                if (errorObj.has("message") && !errorObj.get("message").isJsonNull()) {
+                    return errorObj.get("message").getAsString();
                 }
-                
-                // Step 3: Check user's borrowing limit
-                CompletableFuture<Boolean> borrowingLimitFuture = checkUserBorrowingLimit(userId);
-                Boolean canBorrow = borrowingLimitFuture.join();
-                
-                if (!canBorrow) {
-                    throw new RuntimeException("You have reached your maximum borrowing limit");
+            }
+        } catch (Exception parseError) {
+            android.util.Log.w("SupabaseClient", "Could not parse error response: " + parseError.getMessage());
+        }
+        return fallback;
+    }
+
+    // Client-side pipeline used when the request_borrow function has not been deployed. Duplicate
+    // submissions are caught by the idempotency key on insert rather than by a pending-request lookup.
+    private CompletableFuture<Borrowing> createBorrowingRequestWithChecks(int userId, int resourceId, String idempotencyKey) {
+        
+        // The checks are independent, so run them concurrently and fail on the first rejection;
+        // the borrow then costs roughly the slowest check plus the write
+        // Step 1: Check if the resource exists and is available
+        CompletableFuture<Void> resourceCheck = getLibraryResourceById(resourceId).thenAccept(resource -> {
+            if (resource == null) {
+                throw new RuntimeException("Resource not found");
+            }
+            
+            android.util.Log.d("SupabaseClient", "Resource found: " + resource.getTitle() + " with status: " + resource.getStatus());
+            
+            if (!"available".equalsIgnoreCase(resource.getStatus())) {
+                throw new RuntimeException("This resource is not available for borrowing. Current status: " + resource.getStatus());
+            }
+        });
+        
+        // Step 2: Check user's borrowing limit
+        CompletableFuture<Void> limitCheck = checkUserBorrowingLimit(userId).thenAccept(canBorrow -> {
+            if (!canBorrow) {
+                throw new RuntimeException("You have reached your maximum borrowing limit");
+            }
+        });
+        
+        // Step 3: Create the borrowing request. A retry of a borrow that went through fails the
+        // availability check, because the first attempt marked the resource borrowed; the key
+        // then finds that borrowing, and only an unknown key reports the rejection
+        return Futures.allFailFast(resourceCheck, limitCheck).handle((v, rejection) -> rejection == null
+            ? insertBorrowingRequest(userId, resourceId, idempotencyKey)
+            : findBorrowingByIdempotencyKey(idempotencyKey).thenApply(existing -> {
+                if (existing == null) {
+                    throw rejection instanceof java.util.concurrent.CompletionException
+                        ? (java.util.concurrent.CompletionException) rejection
+                        : new java.util.concurrent.CompletionException(rejection);
                 }
+                android.util.Log.d("SupabaseClient", "Borrowing request with key " + idempotencyKey + " already exists");
+                return existing;
+            })
+        ).thenCompose(borrowing -> borrowing);
+    }
 
-                // Step 4: Create the borrowing request
-                // Calculate due date (assuming 7 days borrowing period)
-                java.util.Calendar calendar = java.util.Calendar.getInstance();
-                calendar.add(java.util.Calendar.DAY_OF_MONTH, 7);
-                java.util.Date dueDate = calendar.getTime();
+    private CompletableFuture<Borrowing> insertBorrowingRequest(int userId, int resourceId, String idempotencyKey) {
+        // Create borrowing data map (excluding auto-generated fields)
+        Map<String, Object> borrowingData = new HashMap<>();
+        borrowingData.put("user_id", userId);
+        borrowingData.put("resource_id", resourceId);
+        // ISO 8601 UTC strings, as Timestamps writes them
+        borrowingData.put("borrow_date", Timestamps.format(new Date()));
+        borrowingData.put("due_date", Timestamps.format(dueDateFromNow()));
+        borrowingData.put("status", "pending");
+        borrowingData.put("fine_amount", "0.00");
+        borrowingData.put("idempotency_key", idempotencyKey);
+
+        // Upsert on the key: a repeated attempt inserts nothing and returns an empty array
+        String url = supabaseUrl + "/rest/v1/borrowings?on_conflict=idempotency_key";
+        String json = gson.toJson(borrowingData);
+        
+        android.util.Log.d("SupabaseClient", "Creating borrowing request with data: " + json);
+        
+        Request request = anonRequest(url)
+            .addHeader("Prefer", "resolution=ignore-duplicates,return=representation")
+            .post(RequestBody.create(json, JSON))
+            .build();
 
-                // Format dates as ISO 8601 strings for Supabase
-                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
-                dateFormat.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
-                
-                // Create borrowing data map (excluding auto-generated fields)
-                Map<String, Object> borrowingData = new HashMap<>();
-                borrowingData.put("user_id", userId);
-                borrowingData.put("resource_id", resourceId);
-                borrowingData.put("borrow_date", dateFormat.format(new java.util.Date()));
-                borrowingData.put("due_date", dateFormat.format(dueDate));
-                borrowingData.put("status", "pending");
-                borrowingData.put("fine_amount", "0.00");
-
-                String url = SupabaseConfig.getUrl() + "/rest/v1/borrowings";
-                String json = gson.toJson(borrowingData);
-                
-                android.util.Log.d("SupabaseClient", "Creating borrowing request with data: " + json);
+        return executeAsync(request, response -> {
+            android.util.Log.d("SupabaseClient", "Borrowing request response code: " + response.code());
+            
+            if (!response.isSuccessful()) {
+                String responseBodyStr = response.body() != null ? response.body().string() : "No response body";
+                android.util.Log.e("SupabaseClient", "Failed to create borrowing request: HTTP " + response.code() + 
+                    " - " + response.message() + " - Body: " + responseBodyStr);
                 
-                RequestBody body = RequestBody.create(json, JSON);
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .addHeader("Prefer", "return=representation")
-                    .post(body)
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    String responseBodyStr = response.body() != null ? response.body().string() : "No response body";
-                    
-                    android.util.Log.d("SupabaseClient", "Borrowing request response code: " + response.code());
-                    android.util.Log.d("SupabaseClient", "Borrowing request response body: " + responseBodyStr);
-                    
-                    if (!response.isSuccessful()) {
-                        android.util.Log.e("SupabaseClient", "Failed to create borrowing request: HTTP " + response.code() + 
-                            " - " + response.message() + " - Body: " + responseBodyStr);
-                        
-                        // Parse error details if available
-                        String errorMessage = "Failed to create borrowing request";
-                        try {
-                            JsonElement errorJson = JsonParser.parseString(responseBodyStr);
-                            if (errorJson.isJsonObject()) {
-                                JsonObject errorObj = errorJson.getAsJsonObject();
-                                if (errorObj.has("message")) {
-                                    errorMessage = errorObj.get("message").getAsString();
-                                } else if (errorObj.has("hint")) {
-                                    errorMessage = errorObj.get("hint").getAsString();
-                                } else if (errorObj.has("details")) {
-                                    errorMessage = errorObj.get("details").getAsString();
-                                }
-                            }
-                        } catch (Exception parseError) {
-                            android.util.Log.w("SupabaseClient", "Could not parse error response: " + parseError.getMessage());
+                // Parse error details if available
+                String errorMessage = "Failed to create borrowing request";
+                try {
+                    JsonElement errorJson = JsonParser.parseString(responseBodyStr);
+                    if (errorJson.isJsonObject()) {
+                        JsonObject errorObj = errorJson.getAsJsonObject();
+                        if (errorObj.has("message")) {
+                            errorMessage = errorObj.get("message").getAsString();
+                        } else if (errorObj.has("hint")) {
+                            errorMessage = errorObj.get("hint").getAsString();
+                        } else if (errorObj.has("details")) {
+                            errorMessage = errorObj.get("details").getAsString();
                         }
-                        
-                        throw new RuntimeException(errorMessage + " (HTTP " + response.code() + ")");
                     }
+                } catch (Exception parseError) {
+                    android.util.Log.w("SupabaseClient", "Could not parse error response: " + parseError.getMessage());
+                }
+                
+                throw new RuntimeException(errorMessage + " (HTTP " + response.code() + ")");
+            }
 
-                    android.util.Log.d("SupabaseClient", "Borrowing request created successfully");
-                    
-                    // Parse response as list of Borrowing objects
-                    Type listType = new TypeToken<List<Borrowing>>(){}.getType();
-                    List<Borrowing> borrowings = borrowingGson.fromJson(responseBodyStr, listType);
-
-                    if (borrowings == null || borrowings.isEmpty()) {
-                        android.util.Log.e("SupabaseClient", "Response parsed successfully but no borrowing objects returned");
-                        throw new RuntimeException("Failed to create borrowing request - no data returned");
-                    }
+            // An empty array means the key was already used
+            return JsonStreams.readFirst(borrowingGson, response.body(), Borrowing.class);
+        }).thenCompose(createdBorrowing -> {
+            if (createdBorrowing == null) {
+                // The key was already used: this is a retry of a request that went through
+                android.util.Log.d("SupabaseClient", "Borrowing request with key " + idempotencyKey + " already exists");
+                return getBorrowingByIdempotencyKey(idempotencyKey);
+            }
 
-                    Borrowing createdBorrowing = borrowings.get(0);
-                    android.util.Log.d("SupabaseClient", "Successfully created borrowing with ID: " + createdBorrowing.getBorrowingId());
-                    
-                    // Step 5: Update resource status to borrowed (like in PHP code)
-                    try {
-                        updateResourceStatus(resourceId, "borrowed").join();
-                        android.util.Log.d("SupabaseClient", "Successfully updated resource status to borrowed");
-        } catch (Exception e) {
-                        android.util.Log.w("SupabaseClient", "Warning: Could not update resource status: " + e.getMessage());
-                        // Don't fail the entire operation for this
-                    }
-                    
-                    return createdBorrowing;
+            android.util.Log.d("SupabaseClient", "Successfully created borrowing with ID: " + createdBorrowing.getBorrowingId());
+            
+            // Step 5: Update resource status to borrowed (like in PHP code)
+            return updateResourceStatus(resourceId, "borrowed").handle((v, e) -> {
+                if (e != null) {
+                    android.util.Log.w("SupabaseClient", "Warning: Could not update resource status: " + e.getMessage());
+                    // Don't fail the entire operation for this
+                } else {
+                    android.util.Log.d("SupabaseClient", "Successfully updated resource status to borrowed");
                 }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error creating borrowing request: " + e.getMessage(), e);
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
+                return createdBorrowing;
+            });
+        }).whenComplete((borrowing, e) -> {
+            if (e != null) {
                 android.util.Log.e("SupabaseClient", "Error creating borrowing request: " + e.getMessage(), e);
-                throw new RuntimeException(e.getMessage(), e);
             }
         });
     }
 
+    // Reached after an insert was ignored as a duplicate, so the row must exist
+    private CompletableFuture<Borrowing> getBorrowingByIdempotencyKey(String idempotencyKey) {
+        return findBorrowingByIdempotencyKey(idempotencyKey).thenApply(borrowing -> {
+            if (borrowing == null) {
+                throw new RuntimeException("Failed to create borrowing request - no data returned");
+            }
+            return borrowing;
+        });
+    }
+
+    // Completes with null when no borrowing carries the key
+    private CompletableFuture<Borrowing> findBorrowingByIdempotencyKey(String idempotencyKey) {
+        Request request = anonRequest(supabaseUrl + "/rest/v1/borrowings?idempotency_key=eq." + idempotencyKey + "&select=*")
+            .get()
+            .build();
+
+        return executeAsync(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to get existing borrowing request: HTTP " + response.code());
+            }
+            List<Borrowing> borrowings = JsonStreams.readList(borrowingGson, response.body(), Borrowing.class);
+            return borrowings != null && !borrowings.isEmpty() ? borrowings.get(0) : null;
+        });
+    }
+
     // Check user's borrowing limit
     public CompletableFuture<Boolean> checkUserBorrowingLimit(int userId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/users?user_id=eq." + userId + "&select=max_books";
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        android.util.Log.e("SupabaseClient", "Failed to get user borrowing limit: HTTP " + response.code());
-                        return true; // Allow borrowing if we can't check the limit
-                    }
+        String url = supabaseUrl + "/rest/v1/users?user_id=eq." + userId + "&select=max_books";
+        Request request = anonRequest(url).get().build();
 
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<JsonObject>>(){}.getType();
-                    List<JsonObject> users = gson.fromJson(responseBody, listType);
-                    
-                    if (users == null || users.isEmpty()) {
-                        return true; // Allow if user not found
-                    }
-                    
-                    int maxBooks = 5; // Default limit
-                    JsonObject user = users.get(0);
-                    if (user.has("max_books") && !user.get("max_books").isJsonNull()) {
-                        maxBooks = user.get("max_books").getAsInt();
-                    }
-                    
-                    // Check current active borrowings
-                    String borrowingsUrl = SupabaseConfig.getUrl() + "/rest/v1/borrowings?user_id=eq." + userId + 
-                                         "&status=in.(pending,active,overdue)&select=borrowing_id";
-                    
-                    Request borrowingsRequest = new Request.Builder()
-                        .url(borrowingsUrl)
-                        .addHeader("apikey", SupabaseConfig.getAnonKey())
-                        .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                        .addHeader("Content-Type", "application/json")
-                        .get()
-                        .build();
-
-                    try (Response borrowingsResponse = client.newCall(borrowingsRequest).execute()) {
-                        if (borrowingsResponse.isSuccessful()) {
-                            String borrowingsResponseBody = borrowingsResponse.body().string();
-                            Type borrowingsListType = new TypeToken<List<JsonObject>>(){}.getType();
-                            List<JsonObject> activeBorrowings = gson.fromJson(borrowingsResponseBody, borrowingsListType);
-                            
-                            int currentBorrowings = activeBorrowings != null ? activeBorrowings.size() : 0;
-                            boolean canBorrow = currentBorrowings < maxBooks;
-                            
-                            android.util.Log.d("SupabaseClient", "User borrowing check - Current: " + currentBorrowings + ", Max: " + maxBooks + ", Can borrow: " + canBorrow);
-                            
-                            return canBorrow;
-                        }
-                    }
-                    
-                    return true; // Allow if we can't check
-                }
-            } catch (Exception e) {
+        CompletableFuture<Integer> limitFuture = this.<Integer>executeShared(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to get user borrowing limit: HTTP " + response.code());
+            }
+
+            List<JsonObject> users = JsonStreams.readList(gson, response.body(), JsonObject.class);
+            
+            if (users == null || users.isEmpty()) {
+                throw new RuntimeException("User not found");
+            }
+            
+            int maxBooks = 5; // Default limit
+            JsonObject user = users.get(0);
+            if (user.has("max_books") && !user.get("max_books").isJsonNull()) {
+                maxBooks = user.get("max_books").getAsInt();
+            }
+            return maxBooks;
+        });
+        
+        // Count current active borrowings server-side, in parallel with the limit lookup
+        CompletableFuture<Integer> activeCountFuture = countRows("borrowings",
+            "user_id=eq." + userId + "&status=in.(pending,active,overdue)");
+
+        // A failed check fails the future rather than reporting "can borrow": callers decide
+        // whether to warn and continue, and the server enforces the limit in request_borrow anyway
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(limitFuture).thenCombine(scope.track(activeCountFuture), (maxBooks, currentBorrowings) -> {
+            boolean canBorrow = currentBorrowings < maxBooks;
+            android.util.Log.d("SupabaseClient", "User borrowing check - Current: " + currentBorrowings + ", Max: " + maxBooks + ", Can borrow: " + canBorrow);
+            
+            return canBorrow;
+        }).whenComplete((canBorrow, e) -> {
+            if (e != null) {
                 android.util.Log.e("SupabaseClient", "Error checking user borrowing limit: " + e.getMessage(), e);
-                return true; // Allow borrowing if check fails
             }
+        }));
+    }
+
+    // Exact row count for a filtered table without downloading any rows: a HEAD request with
+    // Prefer: count=exact, answered with Content-Range: <range>/<total>
+    public CompletableFuture<Integer> countRows(String table, String filters) {
+        String url = supabaseUrl + "/rest/v1/" + table + "?select=*" + (filters.isEmpty() ? "" : "&" + filters);
+        Request request = anonRequest(url)
+            .addHeader("Prefer", "count=exact")
+            .head()
+            .build();
+
+        return executeShared(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to count " + table + ": HTTP " + response.code() + " - " + response.message());
+            }
+            return parseContentRangeTotal(response.header("Content-Range"));
         });
     }
 
+    static int parseContentRangeTotal(String contentRange) {
+        // e.g. "0-24/25", or "*/0" when nothing matches
+        int slash = contentRange != null ? contentRange.lastIndexOf('/') : -1;
+        if (slash < 0 || slash == contentRange.length() - 1 || contentRange.charAt(slash + 1) == '*') {
+            throw new RuntimeException("Missing exact count in Content-Range: " + contentRange);
+        }
+        try {
+            return Integer.parseInt(contentRange.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Malformed count in Content-Range: " + contentRange, e);
+        }
+    }
+
     // Update resource status
     public CompletableFuture<Void> updateResourceStatus(int resourceId, String status) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                Map<String, Object> updateData = new HashMap<>();
-                updateData.put("status", status);
-                
-                String url = SupabaseConfig.getUrl() + "/rest/v1/library_resources?resource_id=eq." + resourceId;
-                String json = gson.toJson(updateData);
-                
-                RequestBody body = RequestBody.create(json, JSON);
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .patch(body)
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to update resource status: HTTP " + response.code());
-                    }
-                    android.util.Log.d("SupabaseClient", "Successfully updated resource " + resourceId + " status to: " + status);
-                }
-            } catch (Exception e) {
+        Map<String, Object> updateData = new HashMap<>();
+        updateData.put("status", status);
+        
+        String url = supabaseUrl + "/rest/v1/library_resources?resource_id=eq." + resourceId;
+        Request request = anonRequest(url)
+            .patch(RequestBody.create(gson.toJson(updateData), JSON))
+            .build();
+
+        return this.<Void>executeAsync(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to update resource status: HTTP " + response.code());
+            }
+            android.util.Log.d("SupabaseClient", "Successfully updated resource " + resourceId + " status to: " + status);
+            evictCatalogCache();
+            return null;
+        }).whenComplete((v, e) -> {
+            if (e != null) {
                 android.util.Log.e("SupabaseClient", "Error updating resource status: " + e.getMessage(), e);
-                throw new RuntimeException(e.getMessage(), e);
             }
         });
     }
 
     public CompletableFuture<Boolean> checkExistingBorrowingRequest(int userId, int resourceId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/borrowings?user_id=eq." + userId + 
-                           "&resource_id=eq." + resourceId + "&status=eq.pending&select=borrowing_id";
-                
-                android.util.Log.d("SupabaseClient", "Checking existing borrowing request from URL: " + url);
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        android.util.Log.e("SupabaseClient", "Failed to check existing request: HTTP " + response.code());
-                        return false; // Assume no existing request if check fails
-                    }
-
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<Borrowing>>(){}.getType();
-                    List<Borrowing> existingRequests = gson.fromJson(responseBody, listType);
-                    
-                    boolean hasExisting = existingRequests != null && !existingRequests.isEmpty();
-                    android.util.Log.d("SupabaseClient", "Existing request check result: " + hasExisting);
-                    
-                    return hasExisting;
+        android.util.Log.d("SupabaseClient", "Checking existing borrowing request for user " + userId + ", resource " + resourceId);
+        
+        return countRows("borrowings", "user_id=eq." + userId + "&resource_id=eq." + resourceId + "&status=eq.pending")
+            .thenApply(count -> {
+                boolean hasExisting = count > 0;
+                android.util.Log.d("SupabaseClient", "Existing request check result: " + hasExisting);
+                return hasExisting;
+            }).whenComplete((hasExisting, e) -> {
+                if (e != null) {
+                    android.util.Log.e("SupabaseClient", "Error checking existing request: " + e.getMessage(), e);
                 }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error checking existing request: " + e.getMessage(), e);
-                return false; // Assume no existing request if check fails
-            } catch (Exception e) {
-                android.util.Log.e("SupabaseClient", "Error checking existing request: " + e.getMessage(), e);
-                return false; // Assume no existing request if check fails
-            }
-        });
+            });
     }
 
     public CompletableFuture<List<Borrowing>> getUserBorrowingHistory(int userId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/borrowings?user_id=eq." + userId + 
-                           "&select=*,library_resources(title,category,accession_number)&order=borrow_date.desc";
-                
-                android.util.Log.d("SupabaseClient", "Fetching user borrowing history from URL: " + url);
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to get borrowing history: HTTP " + response.code() + " - " + response.message());
-                    }
+        String url = supabaseUrl + "/rest/v1/borrowings?user_id=eq." + userId + 
+                   "&select=*,library_resources(title,category,accession_number)&order=borrow_date.desc";
+        
+        android.util.Log.d("SupabaseClient", "Fetching user borrowing history from URL: " + url);
+        
+        Request request = anonRequest(url).get().build();
 
-                    String responseBody = response.body().string();
-                    android.util.Log.d("SupabaseClient", "Borrowing history response: " + responseBody);
-                    
-                    Type listType = new TypeToken<List<Borrowing>>(){}.getType();
-                    List<Borrowing> borrowings = gson.fromJson(responseBody, listType);
-                    
-                    return borrowings != null ? borrowings : new ArrayList<>();
-                }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error getting borrowing history: " + e.getMessage(), e);
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
+        return executeShared(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to get borrowing history: HTTP " + response.code() + " - " + response.message());
+            }
+
+            List<Borrowing> borrowings = JsonStreams.readList(gson, response.body(), Borrowing.class);
+            
+            return borrowings != null ? borrowings : new ArrayList<Borrowing>();
+        }).whenComplete((borrowings, e) -> {
+            if (e != null) {
                 android.util.Log.e("SupabaseClient", "Error getting borrowing history: " + e.getMessage(), e);
-                throw new RuntimeException("Error: " + e.getMessage(), e);
             }
         });
     }
 
     public CompletableFuture<List<Borrowing>> getPendingBorrowingRequests() {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/borrowings?status=eq.pending" + 
-                           "&select=*,users(first_name,last_name,username),library_resources(title,category,accession_number)" +
-                           "&order=borrow_date.desc";
-                
-                android.util.Log.d("SupabaseClient", "Fetching pending borrowing requests from URL: " + url);
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to get pending requests: HTTP " + response.code() + " - " + response.message());
-                    }
+        String url = supabaseUrl + "/rest/v1/borrowings?status=eq.pending" + 
+                   "&select=*,users(first_name,last_name,username),library_resources(title,category,accession_number)" +
+                   "&order=borrow_date.desc";
+        
+        android.util.Log.d("SupabaseClient", "Fetching pending borrowing requests from URL: " + url);
+        
+        Request request = anonRequest(url).get().build();
 
-                    String responseBody = response.body().string();
-                    android.util.Log.d("SupabaseClient", "Pending requests response: " + responseBody);
-                    
-                    Type listType = new TypeToken<List<Borrowing>>(){}.getType();
-                    List<Borrowing> borrowings = gson.fromJson(responseBody, listType);
-                    
-                    return borrowings != null ? borrowings : new ArrayList<>();
-                }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error getting pending requests: " + e.getMessage(), e);
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
+        return executeShared(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to get pending requests: HTTP " + response.code() + " - " + response.message());
+            }
+
+            List<Borrowing> borrowings = JsonStreams.readList(gson, response.body(), Borrowing.class);
+            
+            return borrowings != null ? borrowings : new ArrayList<Borrowing>();
+        }).whenComplete((borrowings, e) -> {
+            if (e != null) {
                 android.util.Log.e("SupabaseClient", "Error getting pending requests: " + e.getMessage(), e);
-                throw new RuntimeException("Error: " + e.getMessage(), e);
             }
         });
     }
 
     // Borrowing approval methods for librarians
+
+    // One conditional PATCH: only a row still pending is updated, so there is no read-before-write
+    // and a request another librarian already handled comes back as a BorrowingConflictException
     public CompletableFuture<Borrowing> approveBorrowingRequest(int borrowingId, int librarianId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                android.util.Log.d("SupabaseClient", "Starting borrowing approval for borrowing ID: " + borrowingId + " by librarian: " + librarianId);
-                
-                // Step 1: Get borrowing details with user information
-                String getBorrowingUrl = SupabaseConfig.getUrl() + "/rest/v1/borrowings?borrowing_id=eq." + borrowingId + 
-                                       "&select=*,users(borrowing_days_limit)";
-                
-                Request getBorrowingRequest = new Request.Builder()
-                    .url(getBorrowingUrl)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response getBorrowingResponse = client.newCall(getBorrowingRequest).execute()) {
-                    if (!getBorrowingResponse.isSuccessful()) {
-                        throw new RuntimeException("Failed to get borrowing details: HTTP " + getBorrowingResponse.code());
-                    }
+        android.util.Log.d("SupabaseClient", "Starting borrowing approval for borrowing ID: " + borrowingId + " by librarian: " + librarianId);
 
-                    String responseBody = getBorrowingResponse.body().string();
-                    Type listType = new TypeToken<List<Borrowing>>(){}.getType();
-                    List<Borrowing> borrowings = borrowingGson.fromJson(responseBody, listType);
+        return transitionBorrowing(borrowingId, "pending", approvalUpdate(librarianId), "borrowed")
+            .whenComplete((borrowing, e) -> {
+                if (e != null) {
+                    android.util.Log.e("SupabaseClient", "Error approving borrowing: " + e.getMessage(), e);
+                } else {
+                    android.util.Log.d("SupabaseClient", "Successfully approved borrowing ID: " + borrowingId);
+                }
+            });
+    }
+    
+    // Reject borrowing request
+    public CompletableFuture<Void> rejectBorrowingRequest(int borrowingId, int librarianId, String reason) {
+        android.util.Log.d("SupabaseClient", "Rejecting borrowing request ID: " + borrowingId);
 
-                    if (borrowings == null || borrowings.isEmpty()) {
-                        throw new RuntimeException("Borrowing record not found");
-                    }
+        return transitionBorrowing(borrowingId, "pending", rejectionUpdate(librarianId), "available")
+            .whenComplete((borrowing, e) -> {
+                if (e != null) {
+                    android.util.Log.e("SupabaseClient", "Error rejecting borrowing: " + e.getMessage(), e);
+                } else {
+                    android.util.Log.d("SupabaseClient", "Successfully rejected borrowing request ID: " + borrowingId);
+                }
+            }).thenApply(borrowing -> (Void) null);
+    }
 
-                    Borrowing borrowing = borrowings.get(0);
-                    
-                    if (!"pending".equals(borrowing.getStatus())) {
-                        throw new RuntimeException("This borrowing request has already been processed");
-                    }
+    // Moves one borrowing out of expectedStatus and sets its resource to resourceStatus
+    private CompletableFuture<Borrowing> transitionBorrowing(int borrowingId, String expectedStatus, Map<String, Object> updateData, String resourceStatus) {
+        return patchBorrowingsInStatus("borrowing_id=eq." + borrowingId, expectedStatus, updateData).thenCompose(updated -> {
+            if (updated.isEmpty()) {
+                // Missing, or no longer in the expected status because someone else got there first
+                throw new BorrowingConflictException(borrowingId, expectedStatus);
+            }
+            return updateResourceStatuses(updated, resourceStatus).thenApply(v -> {
+                evictCatalogCache();
+                return updated.get(0);
+            });
+        });
+    }
 
-                    // Step 2: Calculate due date based on user's borrowing days limit (default 7 days)
-                    int borrowingDaysLimit = 7; // Default
-                    // You can get this from the user object if needed
-                    
-                    java.util.Calendar calendar = java.util.Calendar.getInstance();
-                    calendar.add(java.util.Calendar.DAY_OF_MONTH, borrowingDaysLimit);
-                    java.util.Date dueDate = calendar.getTime();
-
-                    // Format dates for Supabase
-                    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
-                    dateFormat.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
-
-                    // Step 3: Update borrowing record to approved
-                    Map<String, Object> updateData = new HashMap<>();
-                    updateData.put("status", "active");
-                    updateData.put("due_date", dateFormat.format(dueDate));
-                    updateData.put("approved_by", librarianId);
-                    updateData.put("approved_at", dateFormat.format(new java.util.Date()));
-
-                    String updateUrl = SupabaseConfig.getUrl() + "/rest/v1/borrowings?borrowing_id=eq." + borrowingId;
-                    String updateJson = gson.toJson(updateData);
-
-                    RequestBody updateBody = RequestBody.create(updateJson, JSON);
-                    Request updateRequest = new Request.Builder()
-                        .url(updateUrl)
-                        .addHeader("apikey", SupabaseConfig.getAnonKey())
-                        .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                        .addHeader("Content-Type", "application/json")
-                        .addHeader("Prefer", "return=representation")
-                        .patch(updateBody)
-                        .build();
-
-                    try (Response updateResponse = client.newCall(updateRequest).execute()) {
-                        if (!updateResponse.isSuccessful()) {
-                            String errorBody = updateResponse.body() != null ? updateResponse.body().string() : "No error body";
-                            throw new RuntimeException("Failed to update borrowing record: HTTP " + updateResponse.code() + " - " + errorBody);
-                        }
+    // Default 7-day loan period, counted in calendar days in the device time zone
+    private static Date dueDateFromNow() {
+        return Date.from(java.time.ZonedDateTime.now().plusDays(LOAN_PERIOD_DAYS).toInstant());
+    }
 
-                        String updateResponseBody = updateResponse.body().string();
-                        Type updateListType = new TypeToken<List<Borrowing>>(){}.getType();
-                        List<Borrowing> updatedBorrowings = borrowingGson.fromJson(updateResponseBody, updateListType);
+    private static Map<String, Object> approvalUpdate(int librarianId) {
+        Map<String, Object> updateData = new HashMap<>();
+        updateData.put("status", "active");
+        updateData.put("due_date", Timestamps.format(dueDateFromNow()));
+        updateData.put("approved_by", librarianId);
+        updateData.put("approved_at", Timestamps.format(new Date()));
+        return updateData;
+    }
 
-                        if (updatedBorrowings == null || updatedBorrowings.isEmpty()) {
-                            throw new RuntimeException("Failed to get updated borrowing record");
-                        }
+    private static Map<String, Object> rejectionUpdate(int librarianId) {
+        Map<String, Object> updateData = new HashMap<>();
+        updateData.put("status", "rejected");
+        updateData.put("approved_by", librarianId);
+        updateData.put("approved_at", Timestamps.format(new Date()));
+        // You could add a rejection_reason field if your database supports it
+        return updateData;
+    }
+
+    // Approve many pending requests with one PATCH per chunk of ids instead of three calls each
+    public CompletableFuture<BorrowingBatchResult> approveBorrowingRequests(List<Integer> borrowingIds, int librarianId) {
+        return decideBorrowingRequests(borrowingIds, approvalUpdate(librarianId), "borrowed");
+    }
 
-                        Borrowing updatedBorrowing = updatedBorrowings.get(0);
+    // Reject many pending requests; the reason is not stored, as in rejectBorrowingRequest
+    public CompletableFuture<BorrowingBatchResult> rejectBorrowingRequests(List<Integer> borrowingIds, int librarianId, String reason) {
+        return decideBorrowingRequests(borrowingIds, rejectionUpdate(librarianId), "available");
+    }
 
-                        // Step 4: Update resource status to borrowed
-                        try {
-                            updateResourceStatus(borrowing.getResourceId(), "borrowed").join();
-                            android.util.Log.d("SupabaseClient", "Successfully updated resource status to borrowed");
-                        } catch (Exception e) {
-                            android.util.Log.w("SupabaseClient", "Warning: Could not update resource status: " + e.getMessage());
-                            // Don't fail the entire operation for this
-                        }
+    private CompletableFuture<BorrowingBatchResult> decideBorrowingRequests(List<Integer> borrowingIds, Map<String, Object> updateData, String resourceStatus) {
+        List<Integer> ids = new ArrayList<>(new java.util.LinkedHashSet<>(borrowingIds));
+        List<List<Integer>> chunks = new ArrayList<>();
+        for (int start = 0; start < ids.size(); start += BULK_DECISION_CHUNK_SIZE) {
+            chunks.add(ids.subList(start, Math.min(start + BULK_DECISION_CHUNK_SIZE, ids.size())));
+        }
 
-                        android.util.Log.d("SupabaseClient", "Successfully approved borrowing ID: " + borrowingId + " with due date: " + dateFormat.format(dueDate));
-                        return updatedBorrowing;
+        android.util.Log.d("SupabaseClient", "Setting " + ids.size() + " borrowing requests to " + updateData.get("status") + " in " + chunks.size() + " batches");
+
+        List<CompletableFuture<List<Borrowing>>> batches = new ArrayList<>();
+        for (List<Integer> chunk : chunks) {
+            batches.add(patchBorrowingsInStatus("borrowing_id=in.(" + joinIds(chunk) + ")", "pending", updateData)
+                .thenCompose(updated -> updateResourceStatuses(updated, resourceStatus).thenApply(v -> updated)));
+        }
+
+        return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).handle((v, ignored) -> {
+            BorrowingBatchResult result = new BorrowingBatchResult();
+            for (int i = 0; i < chunks.size(); i++) {
+                List<Integer> chunk = chunks.get(i);
+                CompletableFuture<List<Borrowing>> batch = batches.get(i);
+                try {
+                    java.util.Set<Integer> updatedIds = new java.util.HashSet<>();
+                    for (Borrowing borrowing : batch.join()) {
+                        result.markUpdated(borrowing);
+                        updatedIds.add(borrowing.getBorrowingId());
+                    }
+                    // Rows the status=eq.pending filter excluded were missing or already processed
+                    for (Integer id : chunk) {
+                        if (!updatedIds.contains(id)) {
+                            result.markNotPending(id);
+                        }
+                    }
+                } catch (java.util.concurrent.CompletionException e) {
+                    String error = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+                    android.util.Log.e("SupabaseClient", "Bulk borrowing update failed for " + chunk.size() + " requests: " + error, e);
+                    for (Integer id : chunk) {
+                        result.markFailed(id, error);
                     }
                 }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error approving borrowing: " + e.getMessage(), e);
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
-                android.util.Log.e("SupabaseClient", "Error approving borrowing: " + e.getMessage(), e);
-                throw new RuntimeException(e.getMessage(), e);
             }
+            if (result.count(BorrowingBatchResult.Outcome.UPDATED) > 0) {
+                evictCatalogCache();
+            }
+            android.util.Log.d("SupabaseClient", "Bulk update done: " + result.count(BorrowingBatchResult.Outcome.UPDATED) + " updated, "
+                + result.count(BorrowingBatchResult.Outcome.NOT_PENDING) + " not pending, "
+                + result.count(BorrowingBatchResult.Outcome.FAILED) + " failed");
+            return result;
         });
     }
-    
-    // Reject borrowing request
-    public CompletableFuture<Void> rejectBorrowingRequest(int borrowingId, int librarianId, String reason) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                android.util.Log.d("SupabaseClient", "Rejecting borrowing request ID: " + borrowingId);
-                
-                // Get borrowing details first
-                String getBorrowingUrl = SupabaseConfig.getUrl() + "/rest/v1/borrowings?borrowing_id=eq." + borrowingId + "&select=*";
-                
-                Request getBorrowingRequest = new Request.Builder()
-                    .url(getBorrowingUrl)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response getBorrowingResponse = client.newCall(getBorrowingRequest).execute()) {
-                    if (!getBorrowingResponse.isSuccessful()) {
-                        throw new RuntimeException("Failed to get borrowing details: HTTP " + getBorrowingResponse.code());
-                    }
 
-                    String responseBody = getBorrowingResponse.body().string();
-                    Type listType = new TypeToken<List<Borrowing>>(){}.getType();
-                    List<Borrowing> borrowings = borrowingGson.fromJson(responseBody, listType);
+    // Conditional PATCH: only rows still in expectedStatus are touched, so a request processed
+    // elsewhere is never overwritten. Returns the rows that actually changed.
+    private CompletableFuture<List<Borrowing>> patchBorrowingsInStatus(String idFilter, String expectedStatus, Map<String, Object> updateData) {
+        String url = supabaseUrl + "/rest/v1/borrowings?" + idFilter + "&status=eq." + expectedStatus;
+        Request request = anonRequest(url)
+            .addHeader("Prefer", "return=representation")
+            .patch(RequestBody.create(gson.toJson(updateData), JSON))
+            .build();
 
-                    if (borrowings == null || borrowings.isEmpty()) {
-                        throw new RuntimeException("Borrowing record not found");
-                    }
+        return executeAsync(request, response -> {
+            if (!response.isSuccessful()) {
+                String errorBody = response.body() != null ? response.body().string() : "No error body";
+                throw new RuntimeException("Failed to update borrowing records: HTTP " + response.code() + " - " + errorBody);
+            }
+            List<Borrowing> updated = JsonStreams.readList(borrowingGson, response.body(), Borrowing.class);
+            return updated != null ? updated : new ArrayList<Borrowing>();
+        });
+    }
 
-                    Borrowing borrowing = borrowings.get(0);
-
-                    // Update borrowing record to rejected
-                    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
-                    dateFormat.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
-
-                    Map<String, Object> updateData = new HashMap<>();
-                    updateData.put("status", "rejected");
-                    updateData.put("approved_by", librarianId);
-                    updateData.put("approved_at", dateFormat.format(new java.util.Date()));
-                    // You could add a rejection_reason field if your database supports it
-
-                    String updateUrl = SupabaseConfig.getUrl() + "/rest/v1/borrowings?borrowing_id=eq." + borrowingId;
-                    String updateJson = gson.toJson(updateData);
-
-                    RequestBody updateBody = RequestBody.create(updateJson, JSON);
-                    Request updateRequest = new Request.Builder()
-                        .url(updateUrl)
-                        .addHeader("apikey", SupabaseConfig.getAnonKey())
-                        .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                        .addHeader("Content-Type", "application/json")
-                        .patch(updateBody)
-                        .build();
-
-                    try (Response updateResponse = client.newCall(updateRequest).execute()) {
-                        if (!updateResponse.isSuccessful()) {
-                            String errorBody = updateResponse.body() != null ? updateResponse.body().string() : "No error body";
-                            throw new RuntimeException("Failed to reject borrowing request: HTTP " + updateResponse.code() + " - " + errorBody);
-                        }
+    // One PATCH for every resource behind the updated borrowings; a failure here is logged
+    // but does not undo the borrowing updates
+    private CompletableFuture<Void> updateResourceStatuses(List<Borrowing> borrowings, String status) {
+        java.util.Set<Integer> resourceIds = new java.util.TreeSet<>();
+        for (Borrowing borrowing : borrowings) {
+            resourceIds.add(borrowing.getResourceId());
+        }
+        if (resourceIds.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
 
-                        // Update resource status back to available
-                        try {
-                            updateResourceStatus(borrowing.getResourceId(), "available").join();
-                            android.util.Log.d("SupabaseClient", "Successfully updated resource status back to available");
-                        } catch (Exception e) {
-                            android.util.Log.w("SupabaseClient", "Warning: Could not update resource status: " + e.getMessage());
-                        }
+        Map<String, Object> updateData = new HashMap<>();
+        updateData.put("status", status);
 
-                        android.util.Log.d("SupabaseClient", "Successfully rejected borrowing request ID: " + borrowingId);
-                    }
-                }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error rejecting borrowing: " + e.getMessage(), e);
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
-                android.util.Log.e("SupabaseClient", "Error rejecting borrowing: " + e.getMessage(), e);
-                throw new RuntimeException(e.getMessage(), e);
+        String url = supabaseUrl + "/rest/v1/library_resources?resource_id=in.(" + joinIds(resourceIds) + ")";
+        Request request = anonRequest(url)
+            .patch(RequestBody.create(gson.toJson(updateData), JSON))
+            .build();
+
+        return executeAsync(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to update resource status: HTTP " + response.code());
             }
+            android.util.Log.d("SupabaseClient", "Updated " + resourceIds.size() + " resources to status: " + status);
+            return (Void) null;
+        }).exceptionally(e -> {
+            android.util.Log.w("SupabaseClient", "Warning: Could not update resource statuses: " + e.getMessage());
+            return null;
         });
     }
 
+    private static String joinIds(Iterable<Integer> ids) {
+        StringBuilder joined = new StringBuilder();
+        for (Integer id : ids) {
+            if (joined.length() > 0) {
+                joined.append(',');
+            }
+            joined.append(id);
+        }
+        return joined.toString();
+    }
+
     // Get user's borrowing requests with detailed status information
     public CompletableFuture<List<Borrowing>> getUserBorrowingRequestsWithDetails(int userId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/borrowings?user_id=eq." + userId + 
-                           "&select=*,library_resources(*)" +
-                           "&order=borrow_date.desc";
-                
-                android.util.Log.d("SupabaseClient", "Fetching detailed borrowing requests for user: " + userId);
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        throw new RuntimeException("Failed to get borrowing requests: HTTP " + response.code() + " - " + response.message());
-                    }
+        String url = supabaseUrl + "/rest/v1/borrowings?user_id=eq." + userId + 
+                   "&select=*,library_resources(*)" +
+                   "&order=borrow_date.desc";
+        
+        android.util.Log.d("SupabaseClient", "Fetching detailed borrowing requests for user: " + userId);
+        
+        Request request = anonRequest(url).get().build();
 
-                    String responseBody = response.body().string();
-                    android.util.Log.d("SupabaseClient", "Borrowing requests response: " + responseBody);
-                    
-                    Type listType = new TypeToken<List<Borrowing>>(){}.getType();
-                    List<Borrowing> borrowings = borrowingGson.fromJson(responseBody, listType);
-                    
-                    if (borrowings != null && !borrowings.isEmpty()) {
-                        android.util.Log.d("SupabaseClient", "Successfully retrieved " + borrowings.size() + " borrowing requests");
-                        
-                        // Enrich each resource with category-specific details
-                        List<LibraryResource> resources = new ArrayList<>();
-                        for (Borrowing borrowing : borrowings) {
-                            if (borrowing.getResource() != null) {
-                                resources.add(borrowing.getResource());
-                            }
-                        }
-                        
-                        if (!resources.isEmpty()) {
-                            android.util.Log.d("SupabaseClient", "Enriching " + resources.size() + " resources with detailed information");
-                            enrichResourcesWithDetails(resources);
-                        }
-                    }
-                    
-                    return borrowings != null ? borrowings : new ArrayList<>();
+        // Tracked so cancelling the result also stops the enrichment requests started below
+        RequestScope scope = new RequestScope();
+        return scope.bind(scope.track(executeShared(request, response -> {
+            if (!response.isSuccessful()) {
+                throw new RuntimeException("Failed to get borrowing requests: HTTP " + response.code() + " - " + response.message());
+            }
+
+            List<Borrowing> borrowings = JsonStreams.readList(borrowingGson, response.body(), Borrowing.class);
+            return borrowings != null ? borrowings : new ArrayList<Borrowing>();
+        })).thenCompose(borrowings -> {
+            android.util.Log.d("SupabaseClient", "Successfully retrieved " + borrowings.size() + " borrowing requests");
+            
+            // Enrich each resource with category-specific details
+            List<LibraryResource> resources = new ArrayList<>();
+            for (Borrowing borrowing : borrowings) {
+                if (borrowing.getResource() != null) {
+                    resources.add(borrowing.getResource());
                 }
-            } catch (IOException e) {
-                android.util.Log.e("SupabaseClient", "Network error getting borrowing requests: " + e.getMessage(), e);
-                throw new RuntimeException("Network error: " + e.getMessage(), e);
-            } catch (Exception e) {
+            }
+            
+            if (resources.isEmpty()) {
+                return CompletableFuture.completedFuture(borrowings);
+            }
+            
+            android.util.Log.d("SupabaseClient", "Enriching " + resources.size() + " resources with detailed information");
+            return scope.track(enrichResourcesWithDetailsAsync(resources)).thenApply(v -> borrowings);
+        }).whenComplete((borrowings, e) -> {
+            if (e != null) {
                 android.util.Log.e("SupabaseClient", "Error getting borrowing requests: " + e.getMessage(), e);
-                throw new RuntimeException("Error: " + e.getMessage(), e);
             }
-        });
+        }));
     }
 
     // Get count of pending requests for dashboard summary
     public CompletableFuture<Integer> getUserPendingRequestsCount(int userId) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = SupabaseConfig.getUrl() + "/rest/v1/borrowings?user_id=eq." + userId + 
-                           "&status=eq.pending&select=borrowing_id";
-                
-                Request request = new Request.Builder()
-                    .url(url)
-                    .addHeader("apikey", SupabaseConfig.getAnonKey())
-                    .addHeader("Authorization", "Bearer " + SupabaseConfig.getAnonKey())
-                    .addHeader("Content-Type", "application/json")
-                    .get()
-                    .build();
-
-                try (Response response = client.newCall(request).execute()) {
-                    if (!response.isSuccessful()) {
-                        android.util.Log.e("SupabaseClient", "Failed to get pending requests count: HTTP " + response.code());
-                        return 0;
-                    }
-
-                    String responseBody = response.body().string();
-                    Type listType = new TypeToken<List<Object>>(){}.getType();
-                    List<Object> requests = gson.fromJson(responseBody, listType);
-                    
-                    int count = requests != null ? requests.size() : 0;
+        return countRows("borrowings", "user_id=eq." + userId + "&status=eq.pending")
+            .whenComplete((count, e) -> {
+                if (e == null) {
                     android.util.Log.d("SupabaseClient", "User has " + count + " pending requests");
-                    
-                    return count;
                 }
-            } catch (Exception e) {
+            }).exceptionally(e -> {
                 android.util.Log.e("SupabaseClient", "Error getting pending requests count: " + e.getMessage(), e);
                 return 0;
-            }
-        });
+            });
     }
+
 } 
\ No newline at end of file
@@ -0,0 +1,454 @@
+package com.example.libraryapp.data.json;
+
+import com.example.libraryapp.models.BookDetails;
+import com.example.libraryapp.models.Borrowing;
+import com.example.libraryapp.models.LibraryResource;
+import com.example.libraryapp.models.MediaDetails;
+import com.example.libraryapp.models.PeriodicalDetails;
+import com.example.libraryapp.models.User;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * Hand-written TypeAdapters for the Supabase models. They switch on the column name and
+ * call the setters directly, so Gson never falls back to reflection for these types, and
+ * timestamps go through {@link Timestamps} instead of SimpleDateFormat.
+ *
+ * Keys match the models' @SerializedName values; keep both in sync when adding a column.
+ */
+public final class ModelTypeAdapters {
+
+    private ModelTypeAdapters() {
+    }
+
+    public static Gson newGson() {
+        return register(new GsonBuilder()).create();
+    }
+
+    public static GsonBuilder register(GsonBuilder builder) {
+        DateAdapter dates = new DateAdapter();
+        UserAdapter users = new UserAdapter(dates);
+        BookDetailsAdapter books = new BookDetailsAdapter(dates);
+        PeriodicalDetailsAdapter periodicals = new PeriodicalDetailsAdapter(dates);
+        MediaDetailsAdapter media = new MediaDetailsAdapter();
+        LibraryResourceAdapter resources = new LibraryResourceAdapter(dates, books, periodicals, media);
+        BorrowingAdapter borrowings = new BorrowingAdapter(dates, users, resources);
+
+        return builder
+            .registerTypeAdapter(Date.class, dates)
+            .registerTypeAdapter(User.class, users.nullSafe())
+            .registerTypeAdapter(BookDetails.class, books.nullSafe())
+            .registerTypeAdapter(PeriodicalDetails.class, periodicals.nullSafe())
+            .registerTypeAdapter(MediaDetails.class, media.nullSafe())
+            .registerTypeAdapter(LibraryResource.class, resources.nullSafe())
+            .registerTypeAdapter(Borrowing.class, borrowings.nullSafe());
+    }
+
+    static final class DateAdapter extends TypeAdapter<Date> {
+        @Override
+        public void write(JsonWriter out, Date value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(Timestamps.format(value));
+            }
+        }
+
+        @Override
+        public Date read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            String value = in.nextString();
+            try {
+                return Timestamps.parse(value);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Failed to parse date '" + value + "' at " + in.getPath(), e);
+            }
+        }
+    }
+
+    static final class UserAdapter extends TypeAdapter<User> {
+        private final DateAdapter dates;
+
+        UserAdapter(DateAdapter dates) {
+            this.dates = dates;
+        }
+
+        @Override
+        public void write(JsonWriter out, User user) throws IOException {
+            out.beginObject();
+            out.name("user_id").value(user.getUserId());
+            out.name("membership_id").value(user.getMembershipId());
+            out.name("username").value(user.getUsername());
+            out.name("password").value(user.getPassword());
+            out.name("first_name").value(user.getFirstName());
+            out.name("last_name").value(user.getLastName());
+            out.name("email").value(user.getEmail());
+            out.name("role").value(user.getRole());
+            out.name("max_books").value(user.getMaxBooks());
+            out.name("created_at");
+            dates.write(out, user.getCreatedAt());
+            out.name("updated_at");
+            dates.write(out, user.getUpdatedAt());
+            out.name("borrowing_days_limit").value(user.getBorrowingDaysLimit());
+            out.endObject();
+        }
+
+        @Override
+        public User read(JsonReader in) throws IOException {
+            User user = new User();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "user_id": user.setUserId(nextInt(in)); break;
+                    case "membership_id": user.setMembershipId(nextString(in)); break;
+                    case "username": user.setUsername(nextString(in)); break;
+                    case "password": user.setPassword(nextString(in)); break;
+                    case "first_name": user.setFirstName(nextString(in)); break;
+                    case "last_name": user.setLastName(nextString(in)); break;
+                    case "email": user.setEmail(nextString(in)); break;
+                    case "role": user.setRole(nextString(in)); break;
+                    case "max_books": user.setMaxBooks(nextInt(in)); break;
+                    case "created_at": user.setCreatedAt(dates.read(in)); break;
+                    case "updated_at": user.setUpdatedAt(dates.read(in)); break;
+                    case "borrowing_days_limit": user.setBorrowingDaysLimit(nextInt(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return user;
+        }
+    }
+
+    static final class BookDetailsAdapter extends TypeAdapter<BookDetails> {
+        private final DateAdapter dates;
+
+        BookDetailsAdapter(DateAdapter dates) {
+            this.dates = dates;
+        }
+
+        @Override
+        public void write(JsonWriter out, BookDetails book) throws IOException {
+            out.beginObject();
+            out.name("book_id").value(book.getBookId());
+            out.name("resource_id").value(book.getResourceId());
+            out.name("author").value(book.getAuthor());
+            out.name("isbn").value(book.getIsbn());
+            out.name("publisher").value(book.getPublisher());
+            out.name("edition").value(book.getEdition());
+            out.name("publication_date");
+            dates.write(out, book.getPublicationDate());
+            out.name("type").value(book.getType());
+            out.endObject();
+        }
+
+        @Override
+        public BookDetails read(JsonReader in) throws IOException {
+            BookDetails book = new BookDetails();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "book_id": book.setBookId(nextInt(in)); break;
+                    case "resource_id": book.setResourceId(nextInt(in)); break;
+                    case "author": book.setAuthor(nextString(in)); break;
+                    case "isbn": book.setIsbn(nextString(in)); break;
+                    case "publisher": book.setPublisher(nextString(in)); break;
+                    case "edition": book.setEdition(nextString(in)); break;
+                    case "publication_date": book.setPublicationDate(dates.read(in)); break;
+                    case "type": book.setType(nextString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return book;
+        }
+    }
+
+    static final class PeriodicalDetailsAdapter extends TypeAdapter<PeriodicalDetails> {
+        private final DateAdapter dates;
+
+        PeriodicalDetailsAdapter(DateAdapter dates) {
+            this.dates = dates;
+        }
+
+        @Override
+        public void write(JsonWriter out, PeriodicalDetails periodical) throws IOException {
+            out.beginObject();
+            out.name("periodical_id").value(periodical.getPeriodicalId());
+            out.name("resource_id").value(periodical.getResourceId());
+            out.name("issn").value(periodical.getIssn());
+            out.name("volume").value(periodical.getVolume());
+            out.name("issue").value(periodical.getIssue());
+            out.name("publication_date");
+            dates.write(out, periodical.getPublicationDate());
+            out.name("type").value(periodical.getType());
+            out.endObject();
+        }
+
+        @Override
+        public PeriodicalDetails read(JsonReader in) throws IOException {
+            PeriodicalDetails periodical = new PeriodicalDetails();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "periodical_id": periodical.setPeriodicalId(nextInt(in)); break;
+                    case "resource_id": periodical.setResourceId(nextInt(in)); break;
+                    case "issn": periodical.setIssn(nextString(in)); break;
+                    case "volume": periodical.setVolume(nextString(in)); break;
+                    case "issue": periodical.setIssue(nextString(in)); break;
+                    case "publication_date": periodical.setPublicationDate(dates.read(in)); break;
+                    case "type": periodical.setType(nextString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return periodical;
+        }
+    }
+
+    static final class MediaDetailsAdapter extends TypeAdapter<MediaDetails> {
+        @Override
+        public void write(JsonWriter out, MediaDetails media) throws IOException {
+            out.beginObject();
+            out.name("media_id").value(media.getMediaId());
+            out.name("resource_id").value(media.getResourceId());
+            out.name("format").value(media.getFormat());
+            out.name("runtime").value(media.getRuntime());
+            out.name("media_type").value(media.getMediaType());
+            out.name("type").value(media.getType());
+            out.endObject();
+        }
+
+        @Override
+        public MediaDetails read(JsonReader in) throws IOException {
+            MediaDetails media = new MediaDetails();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "media_id": media.setMediaId(nextInt(in)); break;
+                    case "resource_id": media.setResourceId(nextInt(in)); break;
+                    case "format": media.setFormat(nextString(in)); break;
+                    case "runtime": media.setRuntime(nextInteger(in)); break;
+                    case "media_type": media.setMediaType(nextString(in)); break;
+                    case "type": media.setType(nextString(in)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return media;
+        }
+    }
+
+    static final class LibraryResourceAdapter extends TypeAdapter<LibraryResource> {
+        private final DateAdapter dates;
+        private final BookDetailsAdapter books;
+        private final PeriodicalDetailsAdapter periodicals;
+        private final MediaDetailsAdapter media;
+
+        LibraryResourceAdapter(DateAdapter dates, BookDetailsAdapter books,
+                               PeriodicalDetailsAdapter periodicals, MediaDetailsAdapter media) {
+            this.dates = dates;
+            this.books = books;
+            this.periodicals = periodicals;
+            this.media = media;
+        }
+
+        @Override
+        public void write(JsonWriter out, LibraryResource resource) throws IOException {
+            out.beginObject();
+            out.name("resource_id").value(resource.getResourceId());
+            out.name("title").value(resource.getTitle());
+            out.name("accession_number").value(resource.getAccessionNumber());
+            out.name("category").value(resource.getCategory());
+            out.name("status").value(resource.getStatus());
+            out.name("created_at");
+            dates.write(out, resource.getCreatedAt());
+            out.name("updated_at");
+            dates.write(out, resource.getUpdatedAt());
+            out.name("cover_image").value(resource.getCoverImage());
+            out.name("bookDetails");
+            writeNullable(out, books, resource.getBookDetails());
+            out.name("periodicalDetails");
+            writeNullable(out, periodicals, resource.getPeriodicalDetails());
+            out.name("mediaDetails");
+            writeNullable(out, media, resource.getMediaDetails());
+            out.endObject();
+        }
+
+        @Override
+        public LibraryResource read(JsonReader in) throws IOException {
+            LibraryResource resource = new LibraryResource();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "resource_id": resource.setResourceId(nextInt(in)); break;
+                    case "title": resource.setTitle(nextString(in)); break;
+                    case "accession_number": resource.setAccessionNumber(nextString(in)); break;
+                    case "category": resource.setCategory(nextString(in)); break;
+                    case "status": resource.setStatus(nextString(in)); break;
+                    case "created_at": resource.setCreatedAt(dates.read(in)); break;
+                    case "updated_at": resource.setUpdatedAt(dates.read(in)); break;
+                    case "cover_image": resource.setCoverImage(nextString(in)); break;
+                    // Embedded selects: books(*), periodicals(*), media_resources(*)
+                    case "books":
+                    case "bookDetails":
+                        resource.setBookDetails(readEmbedded(in, books));
+                        break;
+                    case "periodicals":
+                    case "periodicalDetails":
+                        resource.setPeriodicalDetails(readEmbedded(in, periodicals));
+                        break;
+                    case "media_resources":
+                    case "mediaDetails":
+                        resource.setMediaDetails(readEmbedded(in, media));
+                        break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return resource;
+        }
+    }
+
+    static final class BorrowingAdapter extends TypeAdapter<Borrowing> {
+        private final DateAdapter dates;
+        private final UserAdapter users;
+        private final LibraryResourceAdapter resources;
+
+        BorrowingAdapter(DateAdapter dates, UserAdapter users, LibraryResourceAdapter resources) {
+            this.dates = dates;
+            this.users = users;
+            this.resources = resources;
+        }
+
+        @Override
+        public void write(JsonWriter out, Borrowing borrowing) throws IOException {
+            out.beginObject();
+            out.name("borrowing_id").value(borrowing.getBorrowingId());
+            out.name("user_id").value(borrowing.getUserId());
+            out.name("resource_id").value(borrowing.getResourceId());
+            out.name("borrow_date");
+            dates.write(out, borrowing.getBorrowDate());
+            out.name("due_date");
+            dates.write(out, borrowing.getDueDate());
+            out.name("return_date");
+            dates.write(out, borrowing.getReturnDate());
+            out.name("fine_amount").value(borrowing.getFineAmount());
+            out.name("status").value(borrowing.getStatus());
+            out.name("approved_by").value(borrowing.getApprovedBy());
+            out.name("approved_at");
+            dates.write(out, borrowing.getApprovedAt());
+            out.name("returned_by").value(borrowing.getReturnedBy());
+            out.name("users");
+            writeNullable(out, users, borrowing.getUser());
+            out.name("library_resources");
+            writeNullable(out, resources, borrowing.getResource());
+            out.name("approvedByUser");
+            writeNullable(out, users, borrowing.getApprovedByUser());
+            out.name("returnedByUser");
+            writeNullable(out, users, borrowing.getReturnedByUser());
+            out.endObject();
+        }
+
+        @Override
+        public Borrowing read(JsonReader in) throws IOException {
+            Borrowing borrowing = new Borrowing();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "borrowing_id": borrowing.setBorrowingId(nextInteger(in)); break;
+                    case "user_id": borrowing.setUserId(nextInt(in)); break;
+                    case "resource_id": borrowing.setResourceId(nextInt(in)); break;
+                    case "borrow_date": borrowing.setBorrowDate(dates.read(in)); break;
+                    case "due_date": borrowing.setDueDate(dates.read(in)); break;
+                    case "return_date": borrowing.setReturnDate(dates.read(in)); break;
+                    case "fine_amount": borrowing.setFineAmount(nextBigDecimal(in)); break;
+                    case "status": borrowing.setStatus(nextString(in)); break;
+                    case "approved_by": borrowing.setApprovedBy(nextInteger(in)); break;
+                    case "approved_at": borrowing.setApprovedAt(dates.read(in)); break;
+                    case "returned_by": borrowing.setReturnedBy(nextInteger(in)); break;
+                    case "users": borrowing.setUser(readEmbedded(in, users)); break;
+                    case "library_resources": borrowing.setResource(readEmbedded(in, resources)); break;
+                    case "approvedByUser": borrowing.setApprovedByUser(readEmbedded(in, users)); break;
+                    case "returnedByUser": borrowing.setReturnedByUser(readEmbedded(in, users)); break;
+                    default: in.skipValue(); break;
+                }
+            }
+            in.endObject();
+            return borrowing;
+        }
+    }
+
+    // PostgREST embeds a related row as an object, or as an array when the join is not unique
+    private static <T> T readEmbedded(JsonReader in, TypeAdapter<T> adapter) throws IOException {
+        JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token != JsonToken.BEGIN_ARRAY) {
+            return adapter.read(in);
+        }
+
+        T first = null;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (first == null && in.peek() == JsonToken.BEGIN_OBJECT) {
+                first = adapter.read(in);
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endArray();
+        return first;
+    }
+
+    private static <T> void writeNullable(JsonWriter out, TypeAdapter<T> adapter, T value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            adapter.write(out, value);
+        }
+    }
+
+    private static String nextString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    private static int nextInt(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return 0;
+        }
+        return in.nextInt();
+    }
+
+    private static Integer nextInteger(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextInt();
+    }
+
+    private static BigDecimal nextBigDecimal(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return new BigDecimal(in.nextString());
+    }
+}
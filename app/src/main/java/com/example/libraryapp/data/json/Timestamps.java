@@ -0,0 +1,159 @@
+package com.example.libraryapp.data.json;
+
+import java.util.Date;
+
+/**
+ * Allocation-light parser and formatter for the timestamps PostgREST returns, e.g.
+ * "2024-05-20", "2024-05-20T10:11:12", "2024-05-20T10:11:12.123456+00:00" or "...Z".
+ * Digits are read straight out of the string and converted with civil-date arithmetic,
+ * so no SimpleDateFormat, Calendar or intermediate strings are created per value.
+ * Values without an offset are treated as UTC.
+ */
+public final class Timestamps {
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private Timestamps() {
+    }
+
+    public static Date parse(String value) {
+        return new Date(parseMillis(value));
+    }
+
+    public static long parseMillis(String value) {
+        int length = value.length();
+        if (length < 10 || value.charAt(4) != '-' || value.charAt(7) != '-') {
+            throw new IllegalArgumentException("Invalid timestamp: " + value);
+        }
+
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 2);
+        int day = digits(value, 8, 2);
+        long millis = daysFromCivil(year, month, day) * MILLIS_PER_DAY;
+
+        int pos = 10;
+        if (pos < length && (value.charAt(pos) == 'T' || value.charAt(pos) == ' ')) {
+            if (length < pos + 9 || value.charAt(pos + 3) != ':' || value.charAt(pos + 6) != ':') {
+                throw new IllegalArgumentException("Invalid timestamp: " + value);
+            }
+            int hour = digits(value, pos + 1, 2);
+            int minute = digits(value, pos + 4, 2);
+            int second = digits(value, pos + 7, 2);
+            millis += ((hour * 60L + minute) * 60L + second) * 1000L;
+            pos += 9;
+
+            if (pos < length && value.charAt(pos) == '.') {
+                // Keep millisecond precision; Postgres sends up to microseconds
+                pos++;
+                int fraction = 0;
+                int scale = 0;
+                while (pos < length && isDigit(value.charAt(pos))) {
+                    if (scale < 3) {
+                        fraction = fraction * 10 + (value.charAt(pos) - '0');
+                        scale++;
+                    }
+                    pos++;
+                }
+                while (scale < 3) {
+                    fraction *= 10;
+                    scale++;
+                }
+                millis += fraction;
+            }
+        }
+
+        if (pos < length) {
+            char zone = value.charAt(pos);
+            if (zone == 'Z') {
+                pos++;
+            } else if (zone == '+' || zone == '-') {
+                int offsetHours = digits(value, pos + 1, 2);
+                int offsetMinutes = 0;
+                pos += 3;
+                if (pos < length && value.charAt(pos) == ':') {
+                    pos++;
+                }
+                if (pos + 2 <= length) {
+                    offsetMinutes = digits(value, pos, 2);
+                    pos += 2;
+                }
+                long offsetMillis = (offsetHours * 60L + offsetMinutes) * 60_000L;
+                millis -= zone == '+' ? offsetMillis : -offsetMillis;
+            }
+            if (pos != length) {
+                throw new IllegalArgumentException("Invalid timestamp: " + value);
+            }
+        }
+        return millis;
+    }
+
+    /** Formats as UTC "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", the shape the rest of the client sends. */
+    public static String format(Date date) {
+        long millis = date.getTime();
+        long days = Math.floorDiv(millis, MILLIS_PER_DAY);
+        int millisOfDay = (int) Math.floorMod(millis, MILLIS_PER_DAY);
+
+        // Inverse of daysFromCivil (Howard Hinnant's civil_from_days)
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        char[] out = new char[24];
+        put(out, 0, year, 4);
+        out[4] = '-';
+        put(out, 5, month, 2);
+        out[7] = '-';
+        put(out, 8, day, 2);
+        out[10] = 'T';
+        put(out, 11, millisOfDay / 3_600_000, 2);
+        out[13] = ':';
+        put(out, 14, millisOfDay / 60_000 % 60, 2);
+        out[16] = ':';
+        put(out, 17, millisOfDay / 1000 % 60, 2);
+        out[19] = '.';
+        put(out, 20, millisOfDay % 1000, 3);
+        out[23] = 'Z';
+        return new String(out);
+    }
+
+    // Days since 1970-01-01 for a proleptic Gregorian date (Howard Hinnant's days_from_civil)
+    static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static int digits(String value, int start, int count) {
+        if (start + count > value.length()) {
+            throw new IllegalArgumentException("Invalid timestamp: " + value);
+        }
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = value.charAt(i);
+            if (!isDigit(c)) {
+                throw new IllegalArgumentException("Invalid timestamp: " + value);
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static void put(char[] out, int start, int value, int width) {
+        for (int i = start + width - 1; i >= start; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+}
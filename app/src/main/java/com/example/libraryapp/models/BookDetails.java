@@ -1,15 +1,31 @@
 package com.example.libraryapp.models;
 
+import com.google.gson.annotations.SerializedName;
 import java.util.Date;
 
 public class BookDetails {
+    @SerializedName("book_id")
     private int bookId;        // Primary key from books table
+    
+    @SerializedName("resource_id")
     private int resourceId;    // Foreign key to library_resources
+    
+    @SerializedName("author")
     private String author;
+    
+    @SerializedName("isbn")
     private String isbn;
+    
+    @SerializedName("publisher")
     private String publisher;
+    
+    @SerializedName("edition")
     private String edition;
+    
+    @SerializedName("publication_date")
     private Date publicationDate;
+    
+    @SerializedName("type")
     private String type;       // Additional type field from schema
 
     // Getters and Setters
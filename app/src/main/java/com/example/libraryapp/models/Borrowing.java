@@ -1,5 +1,6 @@
 package com.example.libraryapp.models;
 
+import com.example.libraryapp.utils.DisplayDates;
 import com.google.gson.annotations.SerializedName;
 import com.google.gson.annotations.JsonAdapter;
 import java.math.BigDecimal;
@@ -218,20 +219,17 @@ public class Borrowing {
     // Get formatted dates
     public String getFormattedBorrowDate() {
         if (borrowDate == null) return "Not set";
-        return new java.text.SimpleDateFormat("MMM dd, yyyy", java.util.Locale.getDefault())
-            .format(borrowDate);
+        return DisplayDates.day(borrowDate);
     }
     
     public String getFormattedDueDate() {
         if (dueDate == null) return "Not set";
-        return new java.text.SimpleDateFormat("MMM dd, yyyy", java.util.Locale.getDefault())
-            .format(dueDate);
+        return DisplayDates.day(dueDate);
     }
     
     public String getFormattedReturnDate() {
         if (returnDate == null) return "Not returned";
-        return new java.text.SimpleDateFormat("MMM dd, yyyy", java.util.Locale.getDefault())
-            .format(returnDate);
+        return DisplayDates.day(returnDate);
     }
 
     @Override
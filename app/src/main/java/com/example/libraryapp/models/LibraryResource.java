@@ -38,6 +38,24 @@ public class LibraryResource {
     private PeriodicalDetails periodicalDetails;
     private MediaDetails mediaDetails;
 
+    public LibraryResource() {
+    }
+
+    // Field-by-field copy; the detail objects are shared, so replacing them on the copy leaves the original alone
+    public LibraryResource(LibraryResource other) {
+        this.resourceId = other.resourceId;
+        this.title = other.title;
+        this.accessionNumber = other.accessionNumber;
+        this.category = other.category;
+        this.status = other.status;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.coverImage = other.coverImage;
+        this.bookDetails = other.bookDetails;
+        this.periodicalDetails = other.periodicalDetails;
+        this.mediaDetails = other.mediaDetails;
+    }
+
     // Getters and Setters
     public int getResourceId() { return resourceId; }
     public void setResourceId(int resourceId) { this.resourceId = resourceId; }
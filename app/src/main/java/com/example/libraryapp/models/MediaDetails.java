@@ -1,11 +1,24 @@
 package com.example.libraryapp.models;
 
+import com.google.gson.annotations.SerializedName;
+
 public class MediaDetails {
+    @SerializedName("media_id")
     private int mediaId;       // Primary key from media_resources table
+    
+    @SerializedName("resource_id")
     private int resourceId;    // Foreign key to library_resources
+    
+    @SerializedName("format")
     private String format;
+    
+    @SerializedName("runtime")
     private Integer runtime;
+    
+    @SerializedName("media_type")
     private String mediaType;
+    
+    @SerializedName("type")
     private String type;       // Additional type field from schema
 
     // Getters and Setters
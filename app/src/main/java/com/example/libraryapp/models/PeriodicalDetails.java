@@ -1,14 +1,28 @@
 package com.example.libraryapp.models;
 
+import com.google.gson.annotations.SerializedName;
 import java.util.Date;
 
 public class PeriodicalDetails {
+    @SerializedName("periodical_id")
     private int periodicalId;  // Primary key from periodicals table
+    
+    @SerializedName("resource_id")
     private int resourceId;    // Foreign key to library_resources
+    
+    @SerializedName("issn")
     private String issn;
+    
+    @SerializedName("volume")
     private String volume;
+    
+    @SerializedName("issue")
     private String issue;
+    
+    @SerializedName("publication_date")
     private Date publicationDate;
+    
+    @SerializedName("type")
     private String type;       // Additional type field from schema
 
     // Getters and Setters
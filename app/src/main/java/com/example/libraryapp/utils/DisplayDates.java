@@ -0,0 +1,90 @@
+package com.example.libraryapp.utils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Thread-safe date formatting for the UI, replacing per-call SimpleDateFormat instances.
+ * Formatters are immutable and rebuilt only when the device locale or time zone changes;
+ * day strings are cached by calendar day, since lists show the same few dates over and over.
+ * Parsing and formatting for the API go through {@link com.example.libraryapp.data.json.Timestamps}.
+ */
+public final class DisplayDates {
+    private static final int CACHED_DAYS = 512;
+
+    private static volatile Formats formats;
+
+    private DisplayDates() {
+    }
+
+    /** "MMM dd, yyyy" in the device time zone, for timestamps such as borrow and due dates. */
+    public static String day(Date date) {
+        Formats current = current();
+        return current.day(Instant.ofEpochMilli(date.getTime()).atZone(current.zone).toLocalDate());
+    }
+
+    /**
+     * "MMM dd, yyyy" for Postgres date columns such as publication_date. Those arrive without an
+     * offset and are parsed as UTC midnight, so formatting them in a zone west of UTC would show the day before.
+     */
+    public static String calendarDay(Date date) {
+        return current().day(Instant.ofEpochMilli(date.getTime()).atOffset(ZoneOffset.UTC).toLocalDate());
+    }
+
+    /** "MMM dd, yyyy 'at' HH:mm" in the device time zone. */
+    public static String dayAndTime(Date date) {
+        Formats current = current();
+        return current.dayAndTime.format(Instant.ofEpochMilli(date.getTime()).atZone(current.zone));
+    }
+
+    private static Formats current() {
+        Locale locale = Locale.getDefault();
+        ZoneId zone = ZoneId.systemDefault();
+        Formats current = formats;
+        if (current == null || !current.locale.equals(locale) || !current.zone.equals(zone)) {
+            current = new Formats(locale, zone);
+            formats = current;
+        }
+        return current;
+    }
+
+    private static final class Formats {
+        final Locale locale;
+        final ZoneId zone;
+        final DateTimeFormatter day;
+        final DateTimeFormatter dayAndTime;
+        // Keyed by epoch day; the least recently used day is dropped once full
+        private final Map<Long, String> days = new LinkedHashMap<Long, String>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > CACHED_DAYS;
+            }
+        };
+
+        Formats(Locale locale, ZoneId zone) {
+            this.locale = locale;
+            this.zone = zone;
+            this.day = DateTimeFormatter.ofPattern("MMM dd, yyyy", locale);
+            this.dayAndTime = DateTimeFormatter.ofPattern("MMM dd, yyyy 'at' HH:mm", locale);
+        }
+
+        String day(LocalDate date) {
+            Long key = date.toEpochDay();
+            synchronized (days) {
+                String text = days.get(key);
+                if (text == null) {
+                    text = day.format(date);
+                    days.put(key, text);
+                }
+                return text;
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.libraryapp.core.concurrency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FuturesTest {
+
+    @Test
+    public void allFailFast_firstFailureCompletesAtOnceAndCancelsSiblings() throws Exception {
+        CompletableFuture<String> slow = new CompletableFuture<>();
+        CompletableFuture<String> failing = new CompletableFuture<>();
+        CompletableFuture<String> alreadyDone = CompletableFuture.completedFuture("done");
+
+        CompletableFuture<Void> all = Futures.allFailFast(slow, failing, alreadyDone);
+        assertFalse(all.isDone());
+
+        RuntimeException rejection = new RuntimeException("limit reached");
+        failing.completeExceptionally(rejection);
+
+        // No waiting for slow, which never completes on its own
+        assertTrue(all.isCompletedExceptionally());
+        try {
+            all.get(0, TimeUnit.MILLISECONDS);
+            fail("Expected the aggregate to fail");
+        } catch (ExecutionException e) {
+            assertSame(rejection, e.getCause());
+        }
+        assertTrue(slow.isCancelled());
+        assertFalse(alreadyDone.isCancelled());
+    }
+
+    @Test
+    public void allFailFast_laterFailuresDoNotReplaceTheFirst() throws Exception {
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> second = new CompletableFuture<>();
+        CompletableFuture<Void> all = Futures.allFailFast(first, second);
+
+        RuntimeException firstError = new RuntimeException("first");
+        first.completeExceptionally(firstError);
+        second.completeExceptionally(new RuntimeException("second"));
+
+        try {
+            all.get(0, TimeUnit.MILLISECONDS);
+            fail("Expected the aggregate to fail");
+        } catch (ExecutionException e) {
+            assertSame(firstError, e.getCause());
+        }
+    }
+
+    @Test
+    public void allFailFast_successWaitsForAllAndKeepsResultsInOrder() throws Exception {
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(new CompletableFuture<>());
+        }
+        CompletableFuture<Void> all = Futures.allFailFast(futures.toArray(new CompletableFuture<?>[0]));
+
+        // Completed out of order
+        futures.get(2).complete(2);
+        futures.get(0).complete(0);
+        futures.get(3).complete(3);
+        assertFalse(all.isDone());
+        futures.get(1).complete(1);
+
+        all.get(1, TimeUnit.SECONDS);
+        List<Integer> results = new ArrayList<>();
+        for (CompletableFuture<Integer> future : futures) {
+            assertFalse(future.isCancelled());
+            results.add(future.join());
+        }
+        assertEquals(Arrays.asList(0, 1, 2, 3), results);
+    }
+
+    @Test
+    public void allFailFast_withNoFutures_completesImmediately() {
+        assertTrue(Futures.allFailFast().isDone());
+    }
+}
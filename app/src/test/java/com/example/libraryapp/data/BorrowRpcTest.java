@@ -0,0 +1,190 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.models.Borrowing;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BorrowRpcTest {
+    private MockWebServer server;
+    private SupabaseStandIn standIn;
+    private SupabaseClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        standIn = new SupabaseStandIn();
+        server = new MockWebServer();
+        server.setDispatcher(standIn);
+        server.start();
+        client = new SupabaseClient(null, server.url("").toString().replaceAll("/$", ""));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void createBorrowingRequest_usesSingleRpcRoundTrip() throws Exception {
+        standIn.addResource(1, "available");
+        standIn.addUser(10, 5);
+
+        Borrowing borrowing = client.createBorrowingRequest(10, 1).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Integer.valueOf(1), borrowing.getBorrowingId());
+        assertEquals("pending", borrowing.getStatus());
+        assertNotNull(borrowing.getDueDate());
+        assertEquals("borrowed", standIn.resourceStatus(1));
+
+        assertEquals(1, server.getRequestCount());
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("/rest/v1/rpc/request_borrow", request.getRequestUrl().encodedPath());
+    }
+
+    @Test
+    public void createBorrowingRequest_surfacesValidationMessage() throws Exception {
+        standIn.addResource(1, "borrowed");
+        standIn.addUser(10, 5);
+
+        try {
+            client.createBorrowingRequest(10, 1).get(5, TimeUnit.SECONDS);
+            fail("Expected the borrow to be rejected");
+        } catch (ExecutionException e) {
+            assertEquals("This resource is not available for borrowing. Current status: borrowed", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void createBorrowingRequest_burstForSameItemHasOneWinner() throws Exception {
+        standIn.addResource(1, "available");
+        List<CompletableFuture<Borrowing>> attempts = new ArrayList<>();
+        for (int userId = 100; userId < 120; userId++) {
+            standIn.addUser(userId, 5);
+        }
+        for (int userId = 100; userId < 120; userId++) {
+            attempts.add(client.createBorrowingRequest(userId, 1));
+        }
+
+        int succeeded = 0;
+        for (CompletableFuture<Borrowing> attempt : attempts) {
+            try {
+                attempt.get(5, TimeUnit.SECONDS);
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause().getMessage().startsWith("This resource is not available"));
+            }
+        }
+
+        assertEquals(1, succeeded);
+        assertEquals(1, standIn.borrowingCount());
+    }
+
+    @Test
+    public void createBorrowingRequest_retryWithSameKeyReturnsOriginal() throws Exception {
+        standIn.addResource(1, "available");
+        standIn.addUser(10, 5);
+
+        Borrowing first = client.createBorrowingRequest(10, 1, "6f1c2f0e-8a0b-4d57-9a53-2f1e0c9d4b11").get(5, TimeUnit.SECONDS);
+        Borrowing retry = client.createBorrowingRequest(10, 1, "6f1c2f0e-8a0b-4d57-9a53-2f1e0c9d4b11").get(5, TimeUnit.SECONDS);
+
+        assertEquals(first.getBorrowingId(), retry.getBorrowingId());
+        assertEquals(1, standIn.borrowingCount());
+    }
+
+    @Test
+    public void createBorrowingRequest_fallsBackWhenRpcIsMissing() throws Exception {
+        standIn.setRpcDeployed(false);
+        standIn.addResource(1, "available");
+        standIn.addUser(10, 5);
+
+        Borrowing borrowing = client.createBorrowingRequest(10, 1, "6f1c2f0e-8a0b-4d57-9a53-2f1e0c9d4b11").get(5, TimeUnit.SECONDS);
+
+        assertEquals("pending", borrowing.getStatus());
+        assertEquals(1, standIn.borrowingCount());
+        assertEquals("borrowed", standIn.resourceStatus(1));
+
+        List<RecordedRequest> requests = takeAll();
+        assertEquals("/rest/v1/rpc/request_borrow", requests.get(0).getRequestUrl().encodedPath());
+        assertNotNull(find(requests, "GET", "/rest/v1/library_resources"));
+        assertNotNull(find(requests, "GET", "/rest/v1/users"));
+        assertNotNull(find(requests, "HEAD", "/rest/v1/borrowings"));
+        RecordedRequest insert = find(requests, "POST", "/rest/v1/borrowings");
+        assertEquals("idempotency_key", insert.getRequestUrl().queryParameter("on_conflict"));
+        assertTrue(insert.getHeader("Prefer").contains("resolution=ignore-duplicates"));
+        assertTrue(insert.getHeader("Prefer").contains("return=representation"));
+        assertNotNull(find(requests, "PATCH", "/rest/v1/library_resources"));
+    }
+
+    @Test
+    public void fallback_insertIgnoredAsDuplicateReturnsExistingRow() throws Exception {
+        standIn.setRpcDeployed(false);
+        // An earlier attempt inserted the row, but its response was lost before the resource was updated
+        standIn.addResource(1, "available");
+        standIn.addUser(10, 5);
+        standIn.addBorrowing(5, 10, 1, "pending", "6f1c2f0e-8a0b-4d57-9a53-2f1e0c9d4b11");
+
+        Borrowing retry = client.createBorrowingRequest(10, 1, "6f1c2f0e-8a0b-4d57-9a53-2f1e0c9d4b11").get(5, TimeUnit.SECONDS);
+
+        assertEquals(Integer.valueOf(5), retry.getBorrowingId());
+        assertEquals(1, standIn.borrowingCount());
+        RecordedRequest lookup = find(takeAll(), "GET", "/rest/v1/borrowings");
+        assertEquals("eq.6f1c2f0e-8a0b-4d57-9a53-2f1e0c9d4b11", lookup.getRequestUrl().queryParameter("idempotency_key"));
+    }
+
+    @Test
+    public void fallback_retryAfterSuccessReturnsOriginal() throws Exception {
+        standIn.setRpcDeployed(false);
+        standIn.addResource(1, "available");
+        standIn.addUser(10, 5);
+
+        Borrowing first = client.createBorrowingRequest(10, 1, "6f1c2f0e-8a0b-4d57-9a53-2f1e0c9d4b11").get(5, TimeUnit.SECONDS);
+        // The resource is borrowed now, so the retry fails the availability check and is matched by its key
+        Borrowing retry = client.createBorrowingRequest(10, 1, "6f1c2f0e-8a0b-4d57-9a53-2f1e0c9d4b11").get(5, TimeUnit.SECONDS);
+
+        assertEquals(first.getBorrowingId(), retry.getBorrowingId());
+        assertEquals(1, standIn.borrowingCount());
+    }
+
+    @Test
+    public void fallback_newKeyForUnavailableResourceIsRejected() throws Exception {
+        standIn.setRpcDeployed(false);
+        standIn.addResource(1, "borrowed");
+        standIn.addUser(10, 5);
+
+        try {
+            client.createBorrowingRequest(10, 1).get(5, TimeUnit.SECONDS);
+            fail("Expected the borrow to be rejected");
+        } catch (ExecutionException e) {
+            assertEquals("This resource is not available for borrowing. Current status: borrowed", e.getCause().getMessage());
+        }
+        assertEquals(0, standIn.borrowingCount());
+    }
+
+    private List<RecordedRequest> takeAll() throws InterruptedException {
+        List<RecordedRequest> requests = new ArrayList<>();
+        for (int i = server.getRequestCount(); i > 0; i--) {
+            requests.add(server.takeRequest(1, TimeUnit.SECONDS));
+        }
+        return requests;
+    }
+
+    private static RecordedRequest find(List<RecordedRequest> requests, String method, String path) {
+        for (RecordedRequest request : requests) {
+            if (request != null && method.equals(request.getMethod()) && path.equals(request.getRequestUrl().encodedPath())) {
+                return request;
+            }
+        }
+        fail("No " + method + " " + path + " among " + requests);
+        return null;
+    }
+}
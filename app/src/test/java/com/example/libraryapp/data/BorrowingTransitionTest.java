@@ -0,0 +1,86 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.models.Borrowing;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BorrowingTransitionTest {
+    private MockWebServer server;
+    private SupabaseStandIn standIn;
+    private SupabaseClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        standIn = new SupabaseStandIn();
+        server = new MockWebServer();
+        server.setDispatcher(standIn);
+        server.start();
+        client = new SupabaseClient(null, server.url("").toString().replaceAll("/$", ""));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void approveBorrowingRequest_isOneConditionalPatch() throws Exception {
+        standIn.addResource(1, "borrowed");
+        standIn.addBorrowing(11, 100, 1, "pending");
+
+        Borrowing approved = client.approveBorrowingRequest(11, 7).get(5, TimeUnit.SECONDS);
+
+        assertEquals("active", approved.getStatus());
+        RecordedRequest patch = server.takeRequest();
+        assertEquals("PATCH", patch.getMethod());
+        assertEquals("eq.11", patch.getRequestUrl().queryParameter("borrowing_id"));
+        assertEquals("eq.pending", patch.getRequestUrl().queryParameter("status"));
+        assertEquals("return=representation", patch.getHeader("Prefer"));
+        // No GET before the write; the only other call is the resource status update
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void approveBorrowingRequest_conflictsWhenAlreadyProcessed() throws Exception {
+        standIn.addResource(1, "borrowed");
+        standIn.addBorrowing(11, 100, 1, "rejected");
+
+        try {
+            client.approveBorrowingRequest(11, 7).get(5, TimeUnit.SECONDS);
+            fail("Expected a conflict");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof BorrowingConflictException);
+            assertEquals(11, ((BorrowingConflictException) e.getCause()).getBorrowingId());
+        }
+        assertEquals("rejected", standIn.borrowingStatus(11));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void concurrentApproveAndReject_exactlyOneWins() throws Exception {
+        standIn.addResource(1, "borrowed");
+        standIn.addBorrowing(11, 100, 1, "pending");
+
+        CompletableFuture<Borrowing> approve = client.approveBorrowingRequest(11, 7);
+        CompletableFuture<Void> reject = client.rejectBorrowingRequest(11, 8, null);
+
+        int conflicts = 0;
+        for (CompletableFuture<?> attempt : new CompletableFuture<?>[] { approve, reject }) {
+            try {
+                attempt.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof BorrowingConflictException);
+                conflicts++;
+            }
+        }
+        assertEquals(1, conflicts);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.data.BorrowingBatchResult.Outcome;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BulkBorrowingDecisionTest {
+    private MockWebServer server;
+    private SupabaseStandIn standIn;
+    private SupabaseClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        standIn = new SupabaseStandIn();
+        server = new MockWebServer();
+        server.setDispatcher(standIn);
+        server.start();
+        client = new SupabaseClient(null, server.url("").toString().replaceAll("/$", ""));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void approveBorrowingRequests_reportsPerItemOutcome() throws Exception {
+        standIn.addResource(1, "borrowed");
+        standIn.addResource(2, "borrowed");
+        standIn.addBorrowing(11, 100, 1, "pending");
+        standIn.addBorrowing(12, 101, 2, "pending");
+        standIn.addBorrowing(13, 102, 3, "active");
+
+        BorrowingBatchResult result = client.approveBorrowingRequests(Arrays.asList(11, 12, 13, 99), 7)
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals(Outcome.UPDATED, result.getOutcome(11));
+        assertEquals(Outcome.UPDATED, result.getOutcome(12));
+        assertEquals(Outcome.NOT_PENDING, result.getOutcome(13));
+        assertEquals(Outcome.NOT_PENDING, result.getOutcome(99));
+        assertEquals(2, result.getUpdated().size());
+        assertFalse(result.isFullySuccessful());
+        assertEquals("active", standIn.borrowingStatus(11));
+
+        // One PATCH for the borrowings and one for their resources
+        assertEquals(2, server.getRequestCount());
+        RecordedRequest borrowingPatch = server.takeRequest();
+        assertEquals("in.(11,12,13,99)", borrowingPatch.getRequestUrl().queryParameter("borrowing_id"));
+        assertEquals("eq.pending", borrowingPatch.getRequestUrl().queryParameter("status"));
+        assertEquals("in.(1,2)", server.takeRequest().getRequestUrl().queryParameter("resource_id"));
+    }
+
+    @Test
+    public void rejectBorrowingRequests_releasesResources() throws Exception {
+        standIn.addResource(1, "borrowed");
+        standIn.addBorrowing(11, 100, 1, "pending");
+
+        BorrowingBatchResult result = client.rejectBorrowingRequests(Arrays.asList(11), 7, "Damaged copy")
+            .get(5, TimeUnit.SECONDS);
+
+        assertTrue(result.isFullySuccessful());
+        assertEquals("rejected", standIn.borrowingStatus(11));
+        assertEquals("available", standIn.resourceStatus(1));
+    }
+
+    @Test
+    public void approveBorrowingRequests_chunksLargeQueues() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = 1; id <= 250; id++) {
+            standIn.addResource(id, "borrowed");
+            standIn.addBorrowing(id, 1000 + id, id, "pending");
+            ids.add(id);
+        }
+
+        BorrowingBatchResult result = client.approveBorrowingRequests(ids, 7).get(5, TimeUnit.SECONDS);
+
+        assertEquals(250, result.count(Outcome.UPDATED));
+        // Three borrowing chunks, each followed by one resource PATCH
+        assertEquals(6, server.getRequestCount());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.core.concurrency.RequestScope;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CancellationTest {
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void cancellingFuture_cancelsCall() throws Exception {
+        OkHttpClient client = new OkHttpClient();
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+
+        CompletableFuture<String> future = CallFutures.enqueue(client,
+            new Request.Builder().url(server.url("/rest/v1/borrowings")).build(),
+            response -> response.body().string());
+        server.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals(1, client.dispatcher().runningCallsCount());
+
+        future.cancel(false);
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (client.dispatcher().runningCallsCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, client.dispatcher().runningCallsCount());
+    }
+
+    @Test
+    public void singleFlight_cancelsSharedCallOnlyWhenEveryCallerCancels() {
+        SingleFlight singleFlight = new SingleFlight();
+        CompletableFuture<String> source = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.execute("key", () -> source);
+        CompletableFuture<String> second = singleFlight.execute("key", () -> new CompletableFuture<>());
+
+        first.cancel(false);
+        assertFalse(source.isCancelled());
+
+        second.cancel(false);
+        assertTrue(source.isCancelled());
+
+        // The abandoned flight is not joined; the next caller starts a fresh call
+        CompletableFuture<String> fresh = new CompletableFuture<>();
+        CompletableFuture<String> third = singleFlight.execute("key", () -> fresh);
+        fresh.complete("done");
+        assertEquals("done", third.join());
+    }
+
+    @Test
+    public void requestScope_bindPropagatesCancellationUpstream() {
+        RequestScope scope = new RequestScope();
+        CompletableFuture<Integer> upstream = new CompletableFuture<>();
+        CompletableFuture<Integer> result = scope.bind(scope.track(upstream).thenApply(value -> value + 1));
+
+        result.cancel(false);
+
+        assertTrue(upstream.isCancelled());
+        assertFalse(scope.isActive());
+        // Work started after the scope was cancelled is cancelled straight away
+        assertTrue(scope.track(new CompletableFuture<>()).isCancelled());
+    }
+}
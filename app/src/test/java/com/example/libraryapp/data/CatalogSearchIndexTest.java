@@ -0,0 +1,109 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.models.BookDetails;
+import com.example.libraryapp.models.LibraryResource;
+import com.example.libraryapp.models.PeriodicalDetails;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CatalogSearchIndexTest {
+    private CatalogSearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new CatalogSearchIndex();
+        index.index(Arrays.asList(
+            book(1, "Dune", "Frank Herbert", "978-0-441-17271-9"),
+            book(2, "Children of Dune", "Frank Herbert", null),
+            resource(3, "Dune (Film)", "media"),
+            resource(4, "Caf\u00e9 Society", "periodical")));
+    }
+
+    @Test
+    public void search_matchesSubstringsAcrossFields() {
+        assertEquals(Arrays.asList(1, 2, 3), ids(index.search("dune", "All")));
+        assertEquals(Arrays.asList(1, 2), ids(index.search("  HERBERT ", null)));
+        assertEquals(Arrays.asList(1), ids(index.search("9780441", "All")));
+        assertEquals(Arrays.asList(3), ids(index.search("ACC-3", "All")));
+        // Accents are folded on both sides
+        assertEquals(Arrays.asList(4), ids(index.search("cafe", "All")));
+        assertEquals(Collections.emptyList(), ids(index.search("dunes", "All")));
+    }
+
+    @Test
+    public void search_filtersByCategoryAndHandlesShortQueries() {
+        assertEquals(Arrays.asList(3), ids(index.search("dune", "media")));
+        assertEquals(Arrays.asList(1, 2), ids(index.search("", "book")));
+        assertEquals(Arrays.asList(2), ids(index.search("ch", "All")));
+    }
+
+    @Test
+    public void index_replacesByIdInPlace() {
+        LibraryResource renamed = book(1, "Dune Messiah", "Frank Herbert", null);
+        PeriodicalDetails details = new PeriodicalDetails();
+        details.setIssn("0028-0836");
+        LibraryResource periodical = resource(5, "Nature", "periodical");
+        periodical.setPeriodicalDetails(details);
+
+        index.index(Arrays.asList(renamed, periodical));
+
+        assertEquals(Arrays.asList(1), ids(index.search("messiah", "All")));
+        assertEquals(Collections.emptyList(), ids(index.search("9780441", "All")));
+        assertEquals(Arrays.asList(5), ids(index.search("00280836", "All")));
+        assertEquals(5, index.size());
+
+        index.replaceAll(Collections.singletonList(resource(9, "Solaris", "book")));
+        assertEquals(Collections.emptyList(), ids(index.search("dune", "All")));
+        assertEquals(Arrays.asList(9), ids(index.search("solaris", "book")));
+    }
+
+    @Test
+    public void search_narrowsPreviousResultWhenQueryExtendsIt() {
+        CatalogSearchIndex.Result du = index.search("du", "All", null);
+        CatalogSearchIndex.Result dune = index.search("dune", "All", du);
+        CatalogSearchIndex.Result children = index.search("children of dune", "All", dune);
+
+        assertTrue(dune.narrowed);
+        assertEquals(Arrays.asList(1, 2, 3), ids(dune.getResources()));
+        assertEquals(Arrays.asList(2), ids(children.getResources()));
+
+        // A different category, or a change to the index, means starting over
+        assertFalse(index.search("dune", "book", du).narrowed);
+        index.index(Collections.singletonList(resource(6, "Dune Road", "book")));
+        CatalogSearchIndex.Result afterUpdate = index.search("dune", "All", du);
+        assertFalse(afterUpdate.narrowed);
+        assertEquals(Arrays.asList(1, 2, 3, 6), ids(afterUpdate.getResources()));
+    }
+
+    private static LibraryResource resource(int id, String title, String category) {
+        LibraryResource resource = new LibraryResource();
+        resource.setResourceId(id);
+        resource.setTitle(title);
+        resource.setCategory(category);
+        resource.setAccessionNumber("ACC-" + id);
+        return resource;
+    }
+
+    private static LibraryResource book(int id, String title, String author, String isbn) {
+        BookDetails details = new BookDetails();
+        details.setAuthor(author);
+        details.setIsbn(isbn);
+        LibraryResource resource = resource(id, title, "book");
+        resource.setBookDetails(details);
+        return resource;
+    }
+
+    private static List<Integer> ids(List<LibraryResource> resources) {
+        List<Integer> ids = new ArrayList<>();
+        for (LibraryResource resource : resources) {
+            ids.add(resource.getResourceId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.models.LibraryResource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CatalogSearchPipelineTest {
+    private ScheduledExecutorService scheduler;
+    private CatalogSearchIndex index;
+    private List<Runnable> frames;
+    private List<List<LibraryResource>> delivered;
+    private CatalogSearchPipeline pipeline;
+
+    @Before
+    public void setUp() {
+        scheduler = new ScheduledThreadPoolExecutor(1);
+        index = new CatalogSearchIndex();
+        List<LibraryResource> resources = new ArrayList<>();
+        for (String title : new String[] { "Dune", "Dune Messiah", "Solaris" }) {
+            LibraryResource resource = new LibraryResource();
+            resource.setResourceId(resources.size() + 1);
+            resource.setTitle(title);
+            resource.setCategory("book");
+            resources.add(resource);
+        }
+        index.index(resources);
+
+        // Frames are run by hand so the test decides when the UI catches up
+        frames = new CopyOnWriteArrayList<>();
+        delivered = new CopyOnWriteArrayList<>();
+        pipeline = new CatalogSearchPipeline(index, Runnable::run, scheduler, frames::add, 50, delivered::add);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void submit_debouncesKeystrokes() throws Exception {
+        pipeline.submit("d", "All");
+        pipeline.submit("du", "All");
+        pipeline.submit("dun", "All");
+
+        awaitFrames(1);
+        Thread.sleep(100);
+        runFrames();
+
+        assertEquals(1, delivered.size());
+        assertEquals(2, delivered.get(0).size());
+    }
+
+    @Test
+    public void results_areCoalescedPerFrame() {
+        pipeline.submitNow("", "All");
+        pipeline.submitNow("dune", "All");
+        pipeline.submitNow("messiah", "All");
+
+        assertEquals(1, frames.size());
+        runFrames();
+
+        assertEquals(1, delivered.size());
+        assertEquals("Dune Messiah", delivered.get(0).get(0).getTitle());
+    }
+
+    @Test
+    public void close_dropsPendingWork() throws Exception {
+        pipeline.submit("dune", "All");
+        pipeline.submitNow("solaris", "All");
+        pipeline.close();
+
+        Thread.sleep(100);
+        runFrames();
+
+        assertTrue(delivered.isEmpty());
+    }
+
+    private void awaitFrames(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (frames.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, frames.size());
+    }
+
+    private void runFrames() {
+        for (Runnable frame : frames) {
+            frame.run();
+        }
+        frames.clear();
+    }
+}
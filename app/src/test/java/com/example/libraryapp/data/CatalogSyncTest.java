@@ -0,0 +1,198 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.data.json.Timestamps;
+import com.example.libraryapp.models.LibraryResource;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CatalogSyncTest {
+    private static final long T0 = Timestamps.parseMillis("2026-10-18T09:00:00Z");
+    private static final long MINUTE = 60 * 1000;
+
+    private MockWebServer server;
+    private CatalogServer catalog;
+    private CatalogPager pager;
+    private CatalogSync sync;
+
+    @Before
+    public void setUp() throws Exception {
+        catalog = new CatalogServer();
+        for (int id = 1; id <= 4; id++) {
+            catalog.put(id, "Title " + id, T0 - 60 * MINUTE);
+        }
+        server = new MockWebServer();
+        server.setDispatcher(catalog);
+        server.start();
+        SupabaseClient client = new SupabaseClient(null, server.url("").toString().replaceAll("/$", ""));
+        pager = new CatalogPager(client, 2);
+        sync = new CatalogSync(client);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void updateToEarlierPage_isFoundAfterLaterPageCarriesNewerRows() throws Exception {
+        catalog.now = T0;
+        loadPage();
+
+        // Row 4 changes before its page is read; row 1 changes after page 1 was read, but
+        // before row 4's updated_at. A watermark taken from loaded rows would skip row 1.
+        catalog.put(4, "Title 4, second edition", T0 + 10 * MINUTE);
+        catalog.now = T0 + 11 * MINUTE;
+        loadPage();
+        catalog.put(1, "Title 1, revised", T0 + 5 * MINUTE);
+
+        catalog.now = T0 + 20 * MINUTE;
+        List<LibraryResource> changed = sync.sync(Integer.MAX_VALUE).get(5, TimeUnit.SECONDS);
+
+        // Row 4 comes back too, but it is what was loaded and is not reported again
+        assertEquals(Arrays.asList(1), ids(changed));
+        assertEquals("Title 1, revised", titleOf(1));
+        assertEquals("Title 4, second edition", titleOf(4));
+    }
+
+    @Test
+    public void watermark_startsAtFirstPageAndAdvancesOnlyWithSync() throws Exception {
+        assertNull(sync.getWatermark());
+
+        catalog.now = T0;
+        loadPage();
+        assertEquals(T0 - CatalogSync.WATERMARK_OVERLAP_MILLIS, sync.getWatermark().getTime());
+
+        catalog.now = T0 + 30 * MINUTE;
+        loadPage();
+        assertEquals(T0 - CatalogSync.WATERMARK_OVERLAP_MILLIS, sync.getWatermark().getTime());
+
+        catalog.now = T0 + 40 * MINUTE;
+        sync.sync(Integer.MAX_VALUE).get(5, TimeUnit.SECONDS);
+        assertEquals(T0 + 40 * MINUTE - CatalogSync.WATERMARK_OVERLAP_MILLIS, sync.getWatermark().getTime());
+        assertEquals(Timestamps.format(new Date(T0 - CatalogSync.WATERMARK_OVERLAP_MILLIS)), catalog.lastUpdatedAfter);
+
+        catalog.now = T0 + 50 * MINUTE;
+        sync.sync(Integer.MAX_VALUE).get(5, TimeUnit.SECONDS);
+        assertEquals(Timestamps.format(new Date(T0 + 40 * MINUTE - CatalogSync.WATERMARK_OVERLAP_MILLIS)), catalog.lastUpdatedAfter);
+    }
+
+    @Test
+    public void sync_leavesRowsPastLoadedRangeForPager() throws Exception {
+        catalog.now = T0;
+        loadPage();
+
+        catalog.put(2, "Title 2, revised", T0 + MINUTE);
+        catalog.put(3, "Title 3, revised", T0 + MINUTE);
+        catalog.now = T0 + 2 * MINUTE;
+        List<LibraryResource> changed = sync.sync(pager.getLastResourceId()).get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(2), ids(changed));
+        assertEquals(Arrays.asList(1, 2), ids(sync.snapshot()));
+
+        // The pager then delivers row 3 as it is now
+        loadPage();
+        assertEquals("Title 3, revised", titleOf(3));
+    }
+
+    @Test
+    public void sync_beforeAnyLoad_fetchesNothing() throws Exception {
+        assertTrue(sync.sync(Integer.MAX_VALUE).get(5, TimeUnit.SECONDS).isEmpty());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    private void loadPage() throws Exception {
+        ServerTimed<List<LibraryResource>> page = pager.loadNextPage().get(5, TimeUnit.SECONDS);
+        sync.mergeLoaded(page.getValue(), page.getServerTime());
+    }
+
+    private String titleOf(int resourceId) {
+        for (LibraryResource resource : sync.snapshot()) {
+            if (resource.getResourceId() == resourceId) {
+                return resource.getTitle();
+            }
+        }
+        return null;
+    }
+
+    private static List<Integer> ids(List<LibraryResource> resources) {
+        List<Integer> ids = new ArrayList<>();
+        for (LibraryResource resource : resources) {
+            ids.add(resource.getResourceId());
+        }
+        return ids;
+    }
+
+    // library_resources with keyset and updated_at filters, answering with a settable Date
+    private static class CatalogServer extends Dispatcher {
+        private final Map<Integer, JsonObject> rows = new TreeMap<>();
+        volatile long now;
+        volatile String lastUpdatedAfter;
+
+        synchronized void put(int resourceId, String title, long updatedAt) {
+            JsonObject row = new JsonObject();
+            row.addProperty("resource_id", resourceId);
+            row.addProperty("title", title);
+            row.addProperty("accession_number", "ACC-" + resourceId);
+            row.addProperty("category", "book");
+            row.addProperty("status", "available");
+            row.addProperty("updated_at", Timestamps.format(new Date(updatedAt)));
+            rows.put(resourceId, row);
+        }
+
+        @Override
+        public synchronized MockResponse dispatch(RecordedRequest request) {
+            HttpUrl url = request.getRequestUrl();
+            if (!url.encodedPath().equals("/rest/v1/library_resources")) {
+                return SupabaseStandIn.error(501, "STANDIN", "Not handled: " + url);
+            }
+            String afterId = url.queryParameter("resource_id");
+            String updatedAfter = url.queryParameter("updated_at");
+            String limit = url.queryParameter("limit");
+
+            List<JsonObject> matches = new ArrayList<>();
+            for (JsonObject row : rows.values()) {
+                if (afterId != null && row.get("resource_id").getAsInt() <= Integer.parseInt(afterId.substring("gt.".length()))) {
+                    continue;
+                }
+                if (updatedAfter != null && Timestamps.parseMillis(row.get("updated_at").getAsString())
+                        <= Timestamps.parseMillis(updatedAfter.substring("gt.".length()))) {
+                    continue;
+                }
+                matches.add(row);
+            }
+            if (updatedAfter != null) {
+                lastUpdatedAfter = updatedAfter.substring("gt.".length());
+            }
+
+            JsonArray body = new JsonArray();
+            for (int i = 0; i < matches.size() && (limit == null || i < Integer.parseInt(limit)); i++) {
+                body.add(matches.get(i));
+            }
+            // setHeaders replaces every header, so the body (and its Content-Length) goes last
+            return new MockResponse()
+                .setHeaders(new Headers.Builder()
+                    .add("Content-Type", "application/json")
+                    .add("Date", new Date(now))
+                    .build())
+                .setBody(body.toString());
+        }
+    }
+}
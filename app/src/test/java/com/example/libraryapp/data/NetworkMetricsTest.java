@@ -0,0 +1,94 @@
+package com.example.libraryapp.data;
+
+import java.io.IOException;
+import java.util.List;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NetworkMetricsTest {
+    private MockWebServer server;
+    private NetworkMetrics metrics;
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        metrics = new NetworkMetrics();
+        client = new OkHttpClient.Builder().eventListenerFactory(metrics).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void recordsPhasesPerEndpoint() throws Exception {
+        server.enqueue(new MockResponse().setBody("[{\"user_id\":1}]"));
+        server.enqueue(new MockResponse().setBody("[{\"user_id\":2}]"));
+        server.enqueue(new MockResponse().setBody("[]"));
+
+        get("/rest/v1/users?select=*&user_id=eq.1");
+        get("/rest/v1/users?select=*&user_id=eq.2");
+        get("/rest/v1/library_resources");
+
+        List<EndpointStats> stats = metrics.snapshot();
+        assertEquals(2, stats.size());
+        EndpointStats users = stats.get(1);
+        assertEquals("users", users.getEndpoint());
+        assertEquals(2, users.getCalls());
+        assertEquals(2 * "[{\"user_id\":1}]".length(), users.getBytesRead());
+        assertEquals(2, users.getTimeToFirstByte().getCount());
+        assertEquals(2, users.getBodyRead().getCount());
+        // The second call reused the pooled connection, so only the first paid for connecting
+        assertEquals(1, users.getConnect().getCount());
+        assertEquals("library_resources", stats.get(0).getEndpoint());
+    }
+
+    @Test
+    public void countsFailedCalls() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        OkHttpClient noRetry = client.newBuilder().retryOnConnectionFailure(false).build();
+
+        try {
+            noRetry.newCall(new Request.Builder().url(server.url("/rest/v1/rpc/request_borrow")).build()).execute();
+            fail("Expected the call to fail");
+        } catch (IOException expected) {
+            // Counted below
+        }
+
+        EndpointStats rpc = metrics.snapshot().get(0);
+        assertEquals("rpc/request_borrow", rpc.getEndpoint());
+        assertEquals(1, rpc.getFailures());
+        assertEquals(1, rpc.getTotal().getCount());
+    }
+
+    @Test
+    public void histogramKeepsOnlyRecentSamples() {
+        RollingHistogram histogram = new RollingHistogram(4);
+        for (long value : new long[] { 1000, 1000, 1, 2, 3, 4 }) {
+            histogram.record(value);
+        }
+
+        RollingHistogram.Summary summary = histogram.summarize();
+        assertEquals(4, summary.getCount());
+        assertEquals(2, summary.getP50());
+        assertEquals(4, summary.getMax());
+    }
+
+    private void get(String path) throws Exception {
+        try (Response response = client.newCall(new Request.Builder().url(server.url(path)).build()).execute()) {
+            response.body().string();
+        }
+    }
+}
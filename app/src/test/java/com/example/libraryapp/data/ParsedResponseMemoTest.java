@@ -0,0 +1,147 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.data.json.ModelTypeAdapters;
+import com.example.libraryapp.models.LibraryResource;
+import com.google.gson.Gson;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Cache;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ParsedResponseMemoTest {
+    @Rule
+    public TemporaryFolder cacheDir = new TemporaryFolder();
+
+    private final Gson gson = ModelTypeAdapters.newGson();
+    private MockWebServer server;
+    private Cache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        cache = new Cache(cacheDir.getRoot(), 1024 * 1024);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+        cache.close();
+    }
+
+    @Test
+    public void cachedCatalogResponse_reusesParsedResultAsCopy() throws Exception {
+        OkHttpClient http = new OkHttpClient.Builder().cache(cache).addNetworkInterceptor(new CachePolicyInterceptor()).build();
+        ParsedResponseMemo memo = new ParsedResponseMemo(SupabaseClient::copyParsed);
+        AtomicInteger parses = new AtomicInteger();
+        server.enqueue(SupabaseStandIn.json(200, "[{\"resource_id\":1,\"title\":\"Dune\",\"status\":\"available\"}]"));
+
+        List<LibraryResource> first = parse(http, memo, "/rest/v1/library_resources?select=*", parses);
+        first.get(0).setStatus("borrowed");
+        first.clear();
+
+        List<LibraryResource> second = parse(http, memo, "/rest/v1/library_resources?select=*", parses);
+        List<LibraryResource> third = parse(http, memo, "/rest/v1/library_resources?select=*", parses);
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, parses.get());
+        assertEquals(2, memo.getHitCount());
+        // The first caller's changes stay with the first caller
+        assertEquals(1, second.size());
+        assertEquals("available", second.get(0).getStatus());
+        assertNotSame(second, third);
+        assertNotSame(second.get(0), third.get(0));
+    }
+
+    @Test
+    public void staleCatalogResponse_revalidatesWith304AndReusesParsedResult() throws Exception {
+        OkHttpClient http = new OkHttpClient.Builder().cache(cache).addNetworkInterceptor(new CachePolicyInterceptor()).build();
+        ParsedResponseMemo memo = new ParsedResponseMemo(SupabaseClient::copyParsed);
+        AtomicInteger parses = new AtomicInteger();
+        String etag = "W/\"catalog-7\"";
+        // Served ten minutes ago, so already past library_resources' max-age
+        Date served = new Date(System.currentTimeMillis() - 10 * 60 * 1000);
+        server.enqueue(new MockResponse()
+            .setHeaders(new Headers.Builder()
+                .add("Content-Type", "application/json")
+                .add("ETag", etag)
+                .add("Date", served)
+                .build())
+            .setBody("[{\"resource_id\":1,\"title\":\"Dune\",\"status\":\"available\"}]"));
+        server.enqueue(new MockResponse()
+            .setResponseCode(304)
+            .setHeader("ETag", etag)
+            .setHeader("Date", served));
+
+        List<LibraryResource> first = parse(http, memo, "/rest/v1/library_resources?select=*", parses);
+        List<LibraryResource> second = parse(http, memo, "/rest/v1/library_resources?select=*", parses);
+
+        assertEquals(2, server.getRequestCount());
+        server.takeRequest();
+        assertEquals(etag, server.takeRequest().getHeader("If-None-Match"));
+        assertEquals(1, parses.get());
+        assertEquals(1, memo.getHitCount());
+        assertEquals("Dune", second.get(0).getTitle());
+        assertNotSame(first.get(0), second.get(0));
+    }
+
+    @Test
+    public void noStoreResponse_isNeverRemembered() throws Exception {
+        OkHttpClient http = new OkHttpClient.Builder().cache(cache).addNetworkInterceptor(new CachePolicyInterceptor()).build();
+        ParsedResponseMemo memo = new ParsedResponseMemo(SupabaseClient::copyParsed);
+        AtomicInteger parses = new AtomicInteger();
+        server.enqueue(SupabaseStandIn.json(200, "[{\"resource_id\":1,\"title\":\"Dune\"}]"));
+        server.enqueue(SupabaseStandIn.json(200, "[{\"resource_id\":1,\"title\":\"Dune\"}]"));
+
+        // Anything outside the catalog tables is marked no-store, user rows included
+        parse(http, memo, "/rest/v1/users?select=*", parses);
+        assertEquals(0, memo.size());
+        parse(http, memo, "/rest/v1/users?select=*", parses);
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(2, parses.get());
+        assertEquals(0, memo.getHitCount());
+        assertEquals(0, memo.size());
+    }
+
+    @Test
+    public void catalogWrite_evictsCachedSearchResults() throws Exception {
+        SupabaseStandIn standIn = new SupabaseStandIn();
+        standIn.addBook(1, "Dune", "Frank Herbert", "978-0-441-17271-9");
+        server.setDispatcher(standIn);
+        SupabaseClient client = new SupabaseClient(cache, server.url("").toString().replaceAll("/$", ""));
+
+        assertEquals("available", client.searchLibraryResources("dune").get(5, TimeUnit.SECONDS).get(0).getStatus());
+        assertEquals("available", client.searchLibraryResources("dune").get(5, TimeUnit.SECONDS).get(0).getStatus());
+        assertEquals(1, server.getRequestCount());
+
+        client.updateResourceStatus(1, "borrowed").get(5, TimeUnit.SECONDS);
+
+        assertEquals("borrowed", client.searchLibraryResources("dune").get(5, TimeUnit.SECONDS).get(0).getStatus());
+        assertEquals(3, server.getRequestCount());
+    }
+
+    private List<LibraryResource> parse(OkHttpClient http, ParsedResponseMemo memo, String path, AtomicInteger parses) throws Exception {
+        Request request = new Request.Builder().url(server.url(path)).build();
+        try (Response response = http.newCall(request).execute()) {
+            return memo.parse(path, response, r -> {
+                parses.incrementAndGet();
+                return JsonStreams.readList(gson, r.body(), LibraryResource.class);
+            });
+        }
+    }
+}
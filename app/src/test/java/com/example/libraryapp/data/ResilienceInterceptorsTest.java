@@ -0,0 +1,119 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.models.LibraryResource;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResilienceInterceptorsTest {
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void retry_repeatsIdempotentReadsOnTransientErrors() throws Exception {
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(new RetryInterceptor(3, 1, 5)).build();
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(502));
+        server.enqueue(new MockResponse().setBody("[]"));
+
+        try (Response response = client.newCall(new Request.Builder().url(server.url("/rest/v1/users")).build()).execute()) {
+            assertEquals(200, response.code());
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void retry_leavesWritesAlone() throws Exception {
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(new RetryInterceptor(3, 1, 5)).build();
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setBody("[]"));
+
+        Request post = new Request.Builder()
+            .url(server.url("/rest/v1/borrowings"))
+            .post(RequestBody.create("{}", MediaType.get("application/json")))
+            .build();
+        try (Response response = client.newCall(post).execute()) {
+            assertEquals(503, response.code());
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void circuitBreaker_failsFastWhileOpenThenRecovers() throws Exception {
+        AtomicLong now = new AtomicLong(0);
+        OkHttpClient client = new OkHttpClient.Builder()
+            .addInterceptor(new CircuitBreakerInterceptor(2, 1000, now::get))
+            .build();
+        Request users = new Request.Builder().url(server.url("/rest/v1/users")).build();
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setBody("[]"));
+
+        client.newCall(users).execute().close();
+        client.newCall(users).execute().close();
+        try {
+            client.newCall(users).execute();
+            fail("Expected the circuit to be open");
+        } catch (CircuitOpenException e) {
+            assertEquals("users", e.getEndpoint());
+        }
+        assertEquals(2, server.getRequestCount());
+
+        // Other endpoints are unaffected
+        server.enqueue(new MockResponse().setBody("[]"));
+        client.newCall(new Request.Builder().url(server.url("/rest/v1/library_resources")).build()).execute().close();
+
+        now.set(1000);
+        try (Response trial = client.newCall(users).execute()) {
+            assertEquals(200, trial.code());
+        }
+        server.enqueue(new MockResponse().setBody("[]"));
+        client.newCall(users).execute().close();
+        assertEquals(5, server.getRequestCount());
+    }
+
+    @Test
+    public void getLibraryResourceById_hedgesSlowRead() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                MockResponse response = SupabaseStandIn.json(200, "[{\"resource_id\":1,\"title\":\"Dune\",\"status\":\"available\"}]");
+                // The first attempt stalls; the hedge answers straight away
+                return calls.incrementAndGet() == 1 ? response.setHeadersDelay(5, TimeUnit.SECONDS) : response;
+            }
+        });
+        SupabaseClient supabaseClient = new SupabaseClient(null, server.url("").toString().replaceAll("/$", ""));
+
+        long start = System.nanoTime();
+        LibraryResource resource = supabaseClient.getLibraryResourceById(1).get(3, TimeUnit.SECONDS);
+
+        assertEquals("Dune", resource.getTitle());
+        assertEquals(2, calls.get());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 3000);
+    }
+}
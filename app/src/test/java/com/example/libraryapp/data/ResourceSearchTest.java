@@ -0,0 +1,86 @@
+package com.example.libraryapp.data;
+
+import com.example.libraryapp.models.LibraryResource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ResourceSearchTest {
+    private MockWebServer server;
+    private SupabaseStandIn standIn;
+    private SupabaseClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        standIn = new SupabaseStandIn();
+        standIn.addBook(1, "Children of Dune", "Frank Herbert", "978-0-441-10402-4");
+        standIn.addBook(2, "Dune", "Frank Herbert", "978-0-441-17271-9");
+        standIn.addBook(3, "The Left Hand of Darkness", "Ursula K. Le Guin", "978-0-441-47812-5");
+        standIn.addPeriodical(4, "Nature & Science", "0028-0836");
+        server = new MockWebServer();
+        server.setDispatcher(standIn);
+        server.start();
+        client = new SupabaseClient(null, server.url("").toString().replaceAll("/$", ""));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void search_matchesDetailsWithOneRequest() throws Exception {
+        List<LibraryResource> byAuthor = client.searchLibraryResources("herb").get(5, TimeUnit.SECONDS);
+        assertEquals(Arrays.asList(1, 2), ids(byAuthor));
+        // Details arrive embedded instead of through follow-up enrichment calls
+        assertEquals("Frank Herbert", byAuthor.get(0).getBookDetails().getAuthor());
+        assertEquals(1, server.getRequestCount());
+
+        assertEquals(Arrays.asList(2), ids(client.searchLibraryResources("9780441172719").get(5, TimeUnit.SECONDS)));
+        assertEquals(Arrays.asList(4), ids(client.searchLibraryResources("0028-0836").get(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    public void search_encodesQueryAndPassesPaging() throws Exception {
+        List<LibraryResource> page = client.searchLibraryResources("nature & science", "periodical", 0, 10)
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(4), ids(page));
+        RecordedRequest request = server.takeRequest();
+        assertEquals("/rest/v1/rpc/search_library_resources", request.getRequestUrl().encodedPath());
+        // The ampersand stays inside p_query instead of starting a new parameter
+        assertTrue(request.getPath().contains("p_query=nature%20%26%20science"));
+        assertEquals("periodical", request.getRequestUrl().queryParameter("p_category"));
+        assertEquals("10", request.getRequestUrl().queryParameter("p_limit"));
+        assertEquals("*,books(*),periodicals(*),media_resources(*)", request.getRequestUrl().queryParameter("select"));
+    }
+
+    @Test
+    public void search_fallsBackToTitleMatchWithoutRpc() throws Exception {
+        standIn.setRpcDeployed(false);
+
+        List<LibraryResource> results = client.searchLibraryResources("dune").get(5, TimeUnit.SECONDS);
+
+        assertEquals(Arrays.asList(1, 2), ids(results));
+        server.takeRequest();
+        RecordedRequest fallback = server.takeRequest();
+        assertEquals("ilike.*dune*", fallback.getRequestUrl().queryParameter("title"));
+        assertEquals(2, server.getRequestCount());
+    }
+
+    private static List<Integer> ids(List<LibraryResource> resources) {
+        List<Integer> ids = new ArrayList<>();
+        for (LibraryResource resource : resources) {
+            ids.add(resource.getResourceId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.libraryapp.data;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RowCountTest {
+    private MockWebServer server;
+    private SupabaseClient client;
+    private volatile String contentRange;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                if ("HEAD".equals(request.getMethod())) {
+                    MockResponse response = new MockResponse().setResponseCode(200);
+                    return contentRange != null ? response.setHeader("Content-Range", contentRange) : response;
+                }
+                if (request.getRequestUrl().encodedPath().equals("/rest/v1/users")) {
+                    return SupabaseStandIn.json(200, "[{\"max_books\":5}]");
+                }
+                return SupabaseStandIn.error(501, "STANDIN", "Not handled: " + request.getPath());
+            }
+        });
+        server.start();
+        client = new SupabaseClient(null, server.url("").toString().replaceAll("/$", ""));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void parseContentRangeTotal_readsExactCount() {
+        assertEquals(3573, SupabaseClient.parseContentRangeTotal("0-24/3573"));
+        assertEquals(0, SupabaseClient.parseContentRangeTotal("*/0"));
+    }
+
+    @Test
+    public void parseContentRangeTotal_rejectsMissingOrUnknownCount() {
+        assertRejected("*/*");
+        assertRejected(null);
+        assertRejected("0-24");
+        assertRejected("0-24/");
+        assertRejected("0-24/lots");
+    }
+
+    @Test
+    public void countRows_sendsHeadWithExactCount() throws Exception {
+        contentRange = "0-24/3573";
+
+        assertEquals(Integer.valueOf(3573), client.countRows("borrowings", "user_id=eq.7").get(5, TimeUnit.SECONDS));
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("HEAD", request.getMethod());
+        assertEquals("count=exact", request.getHeader("Prefer"));
+        assertEquals("eq.7", request.getRequestUrl().queryParameter("user_id"));
+    }
+
+    @Test
+    public void countRows_failsWithoutContentRange() throws Exception {
+        contentRange = null;
+
+        try {
+            client.countRows("borrowings", "user_id=eq.7").get(5, TimeUnit.SECONDS);
+            fail("Expected the count to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getMessage().contains("Content-Range"));
+        }
+    }
+
+    @Test
+    public void borrowingLimit_failsRatherThanAllowsWhenCountIsUnknown() throws Exception {
+        contentRange = "*/*";
+
+        try {
+            boolean canBorrow = client.checkUserBorrowingLimit(7).get(5, TimeUnit.SECONDS);
+            fail("Expected the check to fail, got canBorrow=" + canBorrow);
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getMessage().contains("Content-Range"));
+        }
+    }
+
+    @Test
+    public void borrowingLimit_comparesCountWithMaxBooks() throws Exception {
+        contentRange = "0-3/4";
+        assertTrue(client.checkUserBorrowingLimit(7).get(5, TimeUnit.SECONDS));
+
+        contentRange = "0-4/5";
+        assertFalse(client.checkUserBorrowingLimit(7).get(5, TimeUnit.SECONDS));
+    }
+
+    private static void assertRejected(String contentRange) {
+        try {
+            SupabaseClient.parseContentRangeTotal(contentRange);
+            fail("Expected " + contentRange + " to be rejected");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("Content-Range"));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.libraryapp.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import okhttp3.Request;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTest {
+    private static final int CALLERS = 8;
+
+    private MockWebServer server;
+    private SupabaseClient client;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        // Holds every response until the test releases it, so all callers arrive while the first is in flight
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                release.await(5, TimeUnit.SECONDS);
+                return new MockResponse().setResponseCode(206).setHeader("Content-Range", "0-2/3");
+            }
+        });
+        server.start();
+        client = new SupabaseClient(null, server.url("").toString().replaceAll("/$", ""));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        server.shutdown();
+    }
+
+    @Test
+    public void concurrentIdenticalReads_shareOneRequest() throws Exception {
+        List<CompletableFuture<Integer>> counts = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            counts.add(client.countRows("borrowings", "user_id=eq.7&status=eq.pending"));
+        }
+
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        for (CompletableFuture<Integer> count : counts) {
+            assertEquals(Integer.valueOf(3), count.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, server.getRequestCount());
+        assertEquals(CALLERS - 1, client.getSingleFlightHitCount());
+    }
+
+    @Test
+    public void keysDifferingOnlyByHandler_areNotMerged() {
+        Request request = new Request.Builder().url(server.url("/rest/v1/borrowings?select=*")).get().build();
+        CallFutures.ResponseHandler<String> asText = response -> response.body().string();
+        CallFutures.ResponseHandler<Integer> asCode = response -> response.code();
+
+        assertNotEquals(SupabaseClient.singleFlightKey(request, asText), SupabaseClient.singleFlightKey(request, asCode));
+        assertEquals(SupabaseClient.singleFlightKey(request, asText), SupabaseClient.singleFlightKey(request, asText));
+
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger calls = new AtomicInteger();
+        singleFlight.execute(SupabaseClient.singleFlightKey(request, asText), () -> started(calls));
+        singleFlight.execute(SupabaseClient.singleFlightKey(request, asCode), () -> started(calls));
+        assertEquals(2, calls.get());
+        assertEquals(0, singleFlight.getHitCount());
+    }
+
+    @Test
+    public void completedFlight_nextCallStartsNewOne() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> source = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return source;
+        });
+        source.complete("first");
+        assertEquals("first", first.get(1, TimeUnit.SECONDS));
+
+        CompletableFuture<String> second = singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("second");
+        });
+        assertEquals("second", second.get(1, TimeUnit.SECONDS));
+        assertEquals(2, calls.get());
+        assertEquals(0, singleFlight.getHitCount());
+    }
+
+    private static CompletableFuture<Object> started(AtomicInteger calls) {
+        calls.incrementAndGet();
+        return new CompletableFuture<>();
+    }
+}
@@ -0,0 +1,428 @@
+package com.example.libraryapp.data;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Minimal in-memory stand-in for the Supabase REST endpoints the client calls, served by
+ * MockWebServer. The RPC functions mirror supabase/migrations and run under one lock, the
+ * way the real functions run in one transaction with row locks.
+ */
+class SupabaseStandIn extends Dispatcher {
+    private final Map<Integer, String> resourceStatus = new HashMap<>();
+    private final Map<Integer, Integer> userMaxBooks = new HashMap<>();
+    private final List<JsonObject> borrowings = new ArrayList<>();
+    private final List<JsonObject> catalog = new ArrayList<>(); // Resources with embedded details, for search
+    private int nextBorrowingId = 1;
+    private boolean rpcDeployed = true;
+
+    synchronized void addResource(int resourceId, String status) {
+        resourceStatus.put(resourceId, status);
+    }
+
+    synchronized void addBook(int resourceId, String title, String author, String isbn) {
+        JsonObject book = new JsonObject();
+        book.addProperty("resource_id", resourceId);
+        book.addProperty("author", author);
+        book.addProperty("isbn", isbn);
+        addCatalogEntry(resourceId, title, "book").add("books", book);
+    }
+
+    synchronized void addPeriodical(int resourceId, String title, String issn) {
+        JsonObject periodical = new JsonObject();
+        periodical.addProperty("resource_id", resourceId);
+        periodical.addProperty("issn", issn);
+        addCatalogEntry(resourceId, title, "periodical").add("periodicals", periodical);
+    }
+
+    private JsonObject addCatalogEntry(int resourceId, String title, String category) {
+        JsonObject resource = new JsonObject();
+        resource.addProperty("resource_id", resourceId);
+        resource.addProperty("title", title);
+        resource.addProperty("accession_number", "ACC-" + resourceId);
+        resource.addProperty("category", category);
+        resource.addProperty("status", "available");
+        catalog.add(resource);
+        resourceStatus.put(resourceId, "available");
+        return resource;
+    }
+
+    synchronized void addUser(int userId, int maxBooks) {
+        userMaxBooks.put(userId, maxBooks);
+    }
+
+    synchronized void addBorrowing(int borrowingId, int userId, int resourceId, String status) {
+        JsonObject borrowing = new JsonObject();
+        borrowing.addProperty("borrowing_id", borrowingId);
+        borrowing.addProperty("user_id", userId);
+        borrowing.addProperty("resource_id", resourceId);
+        borrowing.addProperty("status", status);
+        borrowings.add(borrowing);
+        nextBorrowingId = Math.max(nextBorrowingId, borrowingId + 1);
+    }
+
+    // A borrowing left behind by an earlier attempt with the same key
+    synchronized void addBorrowing(int borrowingId, int userId, int resourceId, String status, String idempotencyKey) {
+        addBorrowing(borrowingId, userId, resourceId, status);
+        borrowings.get(borrowings.size() - 1).addProperty("idempotency_key", idempotencyKey);
+    }
+
+    synchronized String borrowingStatus(int borrowingId) {
+        for (JsonObject borrowing : borrowings) {
+            if (borrowing.get("borrowing_id").getAsInt() == borrowingId) {
+                return borrowing.get("status").getAsString();
+            }
+        }
+        return null;
+    }
+
+    synchronized void setRpcDeployed(boolean rpcDeployed) {
+        this.rpcDeployed = rpcDeployed;
+    }
+
+    synchronized String resourceStatus(int resourceId) {
+        return resourceStatus.get(resourceId);
+    }
+
+    synchronized int borrowingCount() {
+        return borrowings.size();
+    }
+
+    @Override
+    public synchronized MockResponse dispatch(RecordedRequest request) {
+        String path = request.getRequestUrl().encodedPath();
+
+        if (path.startsWith("/rest/v1/rpc/")) {
+            if (!rpcDeployed) {
+                return error(404, "PGRST202", "Could not find the function in the schema cache");
+            }
+            if ("GET".equals(request.getMethod()) && path.equals("/rest/v1/rpc/search_library_resources")) {
+                return searchLibraryResources(request);
+            }
+            JsonObject params = JsonParser.parseString(request.getBody().readUtf8()).getAsJsonObject();
+            if (path.equals("/rest/v1/rpc/request_borrow")) {
+                JsonElement key = params.get("p_idempotency_key");
+                return requestBorrow(params.get("p_user_id").getAsInt(), params.get("p_resource_id").getAsInt(),
+                    key != null && !key.isJsonNull() ? key.getAsString() : null);
+            }
+            return error(404, "PGRST202", "Could not find the function in the schema cache");
+        }
+
+        if ("PATCH".equals(request.getMethod()) && path.equals("/rest/v1/borrowings")) {
+            return patchBorrowings(request);
+        }
+        if ("PATCH".equals(request.getMethod()) && path.equals("/rest/v1/library_resources")) {
+            return patchResources(request);
+        }
+        if ("GET".equals(request.getMethod()) && path.equals("/rest/v1/library_resources")
+                && request.getRequestUrl().queryParameter("title") != null) {
+            return matchTitles(request);
+        }
+        if ("GET".equals(request.getMethod()) && path.equals("/rest/v1/library_resources")) {
+            return getResources(request);
+        }
+        if ("GET".equals(request.getMethod()) && path.equals("/rest/v1/users")) {
+            return getUsers(request);
+        }
+        if ("HEAD".equals(request.getMethod()) && path.equals("/rest/v1/borrowings")) {
+            return new MockResponse().setResponseCode(200)
+                .setHeader("Content-Range", "*/" + matchingBorrowings(request).size());
+        }
+        if ("GET".equals(request.getMethod()) && path.equals("/rest/v1/borrowings")) {
+            return json(200, matchingBorrowings(request).toString());
+        }
+        if ("POST".equals(request.getMethod()) && path.equals("/rest/v1/borrowings")) {
+            return insertBorrowing(request);
+        }
+
+        return error(501, "STANDIN", "Not handled by stand-in: " + request.getMethod() + " " + path);
+    }
+
+    private MockResponse requestBorrow(int userId, int resourceId, String idempotencyKey) {
+        String status = resourceStatus.get(resourceId);
+        if (status == null) {
+            return error(400, "P0002", "Resource not found");
+        }
+        if (idempotencyKey != null) {
+            for (JsonObject borrowing : borrowings) {
+                if (borrowing.has("idempotency_key") && idempotencyKey.equals(borrowing.get("idempotency_key").getAsString())) {
+                    return json(200, borrowing.toString());
+                }
+            }
+        }
+        if (!"available".equals(status)) {
+            return error(400, "P0001", "This resource is not available for borrowing. Current status: " + status);
+        }
+
+        Integer maxBooks = userMaxBooks.get(userId);
+        if (maxBooks == null) {
+            return error(400, "P0002", "User not found");
+        }
+
+        int active = 0;
+        for (JsonObject borrowing : borrowings) {
+            if (borrowing.get("user_id").getAsInt() != userId) {
+                continue;
+            }
+            String borrowingStatus = borrowing.get("status").getAsString();
+            if (borrowing.get("resource_id").getAsInt() == resourceId && "pending".equals(borrowingStatus)) {
+                return error(400, "P0001", "You already have a pending request for this resource");
+            }
+            if ("pending".equals(borrowingStatus) || "active".equals(borrowingStatus) || "overdue".equals(borrowingStatus)) {
+                active++;
+            }
+        }
+        if (active >= maxBooks) {
+            return error(400, "P0001", "You have reached your maximum borrowing limit");
+        }
+
+        Instant now = Instant.now();
+        JsonObject borrowing = new JsonObject();
+        borrowing.addProperty("borrowing_id", nextBorrowingId++);
+        borrowing.addProperty("user_id", userId);
+        borrowing.addProperty("resource_id", resourceId);
+        borrowing.addProperty("borrow_date", now.toString());
+        borrowing.addProperty("due_date", now.plus(7, ChronoUnit.DAYS).toString());
+        borrowing.addProperty("status", "pending");
+        borrowing.addProperty("fine_amount", "0.00");
+        borrowing.addProperty("idempotency_key", idempotencyKey);
+        borrowings.add(borrowing);
+        resourceStatus.put(resourceId, "borrowed");
+
+        return json(200, borrowing.toString());
+    }
+
+    // Mirrors search_library_resources: every query word must prefix a word of the document,
+    // identifiers also match without punctuation, and title matches rank first
+    private MockResponse searchLibraryResources(RecordedRequest request) {
+        String query = request.getRequestUrl().queryParameter("p_query").toLowerCase();
+        String category = request.getRequestUrl().queryParameter("p_category");
+        String compactQuery = compact(query);
+
+        List<JsonObject> titleMatches = new ArrayList<>();
+        List<JsonObject> otherMatches = new ArrayList<>();
+        for (JsonObject resource : catalog) {
+            if (category != null && !category.equals(resource.get("category").getAsString())) {
+                continue;
+            }
+            String title = resource.get("title").getAsString().toLowerCase();
+            StringBuilder document = new StringBuilder(title).append(' ').append(resource.get("accession_number").getAsString());
+            for (String detail : new String[] { "books", "periodicals" }) {
+                if (resource.has(detail)) {
+                    for (Map.Entry<String, JsonElement> field : resource.getAsJsonObject(detail).entrySet()) {
+                        if (field.getValue().isJsonPrimitive() && !field.getKey().equals("resource_id")) {
+                            String value = field.getValue().getAsString();
+                            document.append(' ').append(value).append(' ').append(compact(value));
+                        }
+                    }
+                }
+            }
+
+            if (prefixesAll(query, title)) {
+                titleMatches.add(resource);
+            } else if (prefixesAll(query, document.toString().toLowerCase())
+                    || (compactQuery.length() >= 4 && query.matches(".*[0-9].*") && prefixesAll(compactQuery, document.toString().toLowerCase()))) {
+                otherMatches.add(resource);
+            }
+        }
+        titleMatches.addAll(otherMatches);
+
+        int offset = Integer.parseInt(request.getRequestUrl().queryParameter("p_offset"));
+        int limit = Integer.parseInt(request.getRequestUrl().queryParameter("p_limit"));
+        JsonArray page = new JsonArray();
+        for (int i = offset; i < Math.min(titleMatches.size(), offset + limit); i++) {
+            page.add(titleMatches.get(i));
+        }
+        return json(200, page.toString());
+    }
+
+    // The title=ilike.*query* fallback
+    private MockResponse matchTitles(RecordedRequest request) {
+        String pattern = request.getRequestUrl().queryParameter("title");
+        String needle = pattern.substring("ilike.*".length(), pattern.length() - 1).toLowerCase();
+        JsonArray matches = new JsonArray();
+        for (JsonObject resource : catalog) {
+            if (resource.get("title").getAsString().toLowerCase().contains(needle)) {
+                matches.add(resource);
+            }
+        }
+        return json(200, matches.toString());
+    }
+
+    private static boolean prefixesAll(String query, String document) {
+        String[] words = document.split("[^\\p{Alnum}]+");
+        for (String term : query.split("[^\\p{Alnum}]+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            boolean found = false;
+            for (String word : words) {
+                if (word.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String compact(String value) {
+        return value.replaceAll("[^0-9A-Za-z]", "").toLowerCase();
+    }
+
+    // Supports the borrowing_id=in.(...) and status=eq.* filters the client sends
+    private MockResponse patchBorrowings(RecordedRequest request) {
+        Set<Integer> ids = inFilter(request.getRequestUrl().queryParameter("borrowing_id"));
+        String statusFilter = request.getRequestUrl().queryParameter("status");
+        JsonObject changes = JsonParser.parseString(request.getBody().readUtf8()).getAsJsonObject();
+
+        JsonArray updated = new JsonArray();
+        for (JsonObject borrowing : borrowings) {
+            if (!ids.contains(borrowing.get("borrowing_id").getAsInt())) {
+                continue;
+            }
+            if (statusFilter != null && !statusFilter.equals("eq." + borrowing.get("status").getAsString())) {
+                continue;
+            }
+            for (Map.Entry<String, JsonElement> change : changes.entrySet()) {
+                borrowing.add(change.getKey(), change.getValue());
+            }
+            updated.add(borrowing);
+        }
+        return json(200, updated.toString());
+    }
+
+    // resource_id=eq.N, as getLibraryResourceById asks for it
+    private MockResponse getResources(RecordedRequest request) {
+        Set<Integer> ids = inFilter(request.getRequestUrl().queryParameter("resource_id"));
+        JsonArray rows = new JsonArray();
+        for (Integer id : ids) {
+            if (resourceStatus.containsKey(id)) {
+                JsonObject resource = new JsonObject();
+                resource.addProperty("resource_id", id);
+                resource.addProperty("title", "Resource " + id);
+                resource.addProperty("status", resourceStatus.get(id));
+                rows.add(resource);
+            }
+        }
+        return json(200, rows.toString());
+    }
+
+    private MockResponse getUsers(RecordedRequest request) {
+        int userId = inFilter(request.getRequestUrl().queryParameter("user_id")).iterator().next();
+        JsonArray rows = new JsonArray();
+        if (userMaxBooks.containsKey(userId)) {
+            JsonObject user = new JsonObject();
+            user.addProperty("max_books", userMaxBooks.get(userId));
+            rows.add(user);
+        }
+        return json(200, rows.toString());
+    }
+
+    // Applies every eq. and in.(...) filter in the query to the borrowing rows
+    private JsonArray matchingBorrowings(RecordedRequest request) {
+        JsonArray matches = new JsonArray();
+        for (JsonObject borrowing : borrowings) {
+            boolean match = true;
+            for (String name : request.getRequestUrl().queryParameterNames()) {
+                String filter = request.getRequestUrl().queryParameter(name);
+                if (!filter.startsWith("eq.") && !filter.startsWith("in.(")) {
+                    continue;
+                }
+                String value = borrowing.has(name) && !borrowing.get(name).isJsonNull() ? borrowing.get(name).getAsString() : null;
+                String values = filter.startsWith("in.(") ? filter.substring(4, filter.length() - 1) : filter.substring(3);
+                boolean found = false;
+                for (String candidate : values.split(",")) {
+                    found |= candidate.trim().equals(value);
+                }
+                match &= found;
+            }
+            if (match) {
+                matches.add(borrowing);
+            }
+        }
+        return matches;
+    }
+
+    // POST with on_conflict=idempotency_key and Prefer: resolution=ignore-duplicates answers an
+    // existing key with an empty array, the way PostgREST does
+    private MockResponse insertBorrowing(RecordedRequest request) {
+        JsonObject row = JsonParser.parseString(request.getBody().readUtf8()).getAsJsonObject();
+        String prefer = request.getHeader("Prefer");
+        boolean ignoreDuplicates = "idempotency_key".equals(request.getRequestUrl().queryParameter("on_conflict"))
+            && prefer != null && prefer.contains("resolution=ignore-duplicates");
+
+        if (row.has("idempotency_key") && !row.get("idempotency_key").isJsonNull()) {
+            String key = row.get("idempotency_key").getAsString();
+            for (JsonObject borrowing : borrowings) {
+                if (borrowing.has("idempotency_key") && key.equals(borrowing.get("idempotency_key").getAsString())) {
+                    return ignoreDuplicates
+                        ? json(201, "[]")
+                        : error(409, "23505", "duplicate key value violates unique constraint \"borrowings_idempotency_key_key\"");
+                }
+            }
+        }
+
+        row.addProperty("borrowing_id", nextBorrowingId++);
+        borrowings.add(row);
+        JsonArray created = new JsonArray();
+        created.add(row);
+        return json(201, created.toString());
+    }
+
+    private MockResponse patchResources(RecordedRequest request) {
+        Set<Integer> ids = inFilter(request.getRequestUrl().queryParameter("resource_id"));
+        String status = JsonParser.parseString(request.getBody().readUtf8()).getAsJsonObject().get("status").getAsString();
+        for (Integer id : ids) {
+            if (resourceStatus.containsKey(id)) {
+                resourceStatus.put(id, status);
+            }
+        }
+        for (JsonObject resource : catalog) {
+            if (ids.contains(resource.get("resource_id").getAsInt())) {
+                resource.addProperty("status", status);
+            }
+        }
+        return new MockResponse().setResponseCode(204);
+    }
+
+    // "in.(1,2,3)" or "eq.1"
+    private static Set<Integer> inFilter(String filter) {
+        Set<Integer> ids = new HashSet<>();
+        String values = filter.startsWith("in.(") ? filter.substring(4, filter.length() - 1) : filter.substring(3);
+        for (String value : values.split(",")) {
+            ids.add(Integer.parseInt(value.trim()));
+        }
+        return ids;
+    }
+
+    static MockResponse json(int code, String body) {
+        return new MockResponse()
+            .setResponseCode(code)
+            .setHeader("Content-Type", "application/json")
+            .setBody(body);
+    }
+
+    static MockResponse error(int code, String postgrestCode, String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", postgrestCode);
+        error.addProperty("message", message);
+        return json(code, error.toString());
+    }
+}
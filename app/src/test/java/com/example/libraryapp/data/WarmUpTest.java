@@ -0,0 +1,50 @@
+package com.example.libraryapp.data;
+
+import java.util.concurrent.TimeUnit;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class WarmUpTest {
+    private MockWebServer server;
+    private SupabaseClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        client = new SupabaseClient(null, server.url("").toString().replaceAll("/$", ""));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void warmUp_opensConnectionReusedByFirstRequest() throws Exception {
+        server.enqueue(new MockResponse());
+        server.enqueue(SupabaseStandIn.json(200, "[{\"resource_id\":1,\"title\":\"Dune\",\"status\":\"available\"}]"));
+
+        client.warmUp().get(5, TimeUnit.SECONDS);
+        client.getLibraryResourceById(1).get(5, TimeUnit.SECONDS);
+
+        RecordedRequest warmUp = server.takeRequest();
+        assertEquals("HEAD", warmUp.getMethod());
+        assertEquals("/rest/v1/", warmUp.getPath());
+        // Sequence number counts requests on one connection: the read did not open a new one
+        assertEquals(1, server.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    public void warmUp_swallowsFailures() throws Exception {
+        server.shutdown();
+
+        assertNull(client.warmUp().get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.libraryapp.data.json;
+
+import com.example.libraryapp.models.Borrowing;
+import com.example.libraryapp.models.LibraryResource;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ModelTypeAdaptersTest {
+    private static final Type RESOURCE_LIST_TYPE = new TypeToken<List<LibraryResource>>(){}.getType();
+    private static final Type BORROWING_LIST_TYPE = new TypeToken<List<Borrowing>>(){}.getType();
+
+    private final Gson gson = ModelTypeAdapters.newGson();
+
+    @Test
+    public void timestamps_parseSupabaseShapes() {
+        long expected = Instant.parse("2024-05-20T10:11:12.123Z").toEpochMilli();
+        assertEquals(expected, Timestamps.parseMillis("2024-05-20T10:11:12.123Z"));
+        assertEquals(expected, Timestamps.parseMillis("2024-05-20T10:11:12.123456+00:00"));
+        assertEquals(expected, Timestamps.parseMillis("2024-05-20T12:11:12.123+02:00"));
+        assertEquals(expected, Timestamps.parseMillis("2024-05-20 10:11:12.123"));
+        assertEquals(Instant.parse("2024-05-20T00:00:00Z").toEpochMilli(), Timestamps.parseMillis("2024-05-20"));
+    }
+
+    @Test
+    public void timestamps_formatRoundTrips() {
+        String value = "1999-12-31T23:59:59.007Z";
+        assertEquals(value, Timestamps.format(Timestamps.parse(value)));
+    }
+
+    @Test
+    public void libraryResource_readsEmbeddedDetailsAsObjectOrArray() {
+        String json = "[{\"resource_id\":1,\"title\":\"A\",\"category\":\"book\","
+            + "\"created_at\":\"2024-05-20T10:11:12.123+00:00\",\"books\":{\"resource_id\":1,\"author\":\"Ann\"},"
+            + "\"periodicals\":null,\"media_resources\":[]},"
+            + "{\"resource_id\":2,\"category\":\"media\",\"unknown\":{\"x\":[1,2]},"
+            + "\"media_resources\":[{\"resource_id\":2,\"runtime\":95}]}]";
+
+        List<LibraryResource> resources = gson.fromJson(json, RESOURCE_LIST_TYPE);
+
+        assertEquals(2, resources.size());
+        assertEquals("Ann", resources.get(0).getBookDetails().getAuthor());
+        assertNull(resources.get(0).getPeriodicalDetails());
+        assertNull(resources.get(0).getMediaDetails());
+        assertNotNull(resources.get(0).getCreatedAt());
+        assertEquals(Integer.valueOf(95), resources.get(1).getMediaDetails().getRuntime());
+    }
+
+    @Test
+    public void borrowing_readsNestedRowsAndNullableColumns() {
+        String json = "[{\"borrowing_id\":7,\"user_id\":3,\"resource_id\":1,\"status\":\"pending\","
+            + "\"fine_amount\":1.50,\"approved_by\":null,\"due_date\":null,"
+            + "\"library_resources\":{\"resource_id\":1,\"title\":\"A\"},"
+            + "\"users\":{\"user_id\":3,\"username\":\"jdoe\"}}]";
+
+        Borrowing borrowing = gson.<List<Borrowing>>fromJson(json, BORROWING_LIST_TYPE).get(0);
+
+        assertEquals(Integer.valueOf(7), borrowing.getBorrowingId());
+        assertEquals(new BigDecimal("1.50"), borrowing.getFineAmount());
+        assertNull(borrowing.getApprovedBy());
+        assertNull(borrowing.getDueDate());
+        assertEquals("A", borrowing.getResource().getTitle());
+        assertEquals("jdoe", borrowing.getUser().getUsername());
+    }
+
+    @Test
+    public void borrowing_writesSnakeCaseAndSkipsNulls() {
+        Borrowing borrowing = new Borrowing();
+        borrowing.setUserId(3);
+        borrowing.setResourceId(1);
+        borrowing.setStatus("pending");
+        borrowing.setBorrowDate(Timestamps.parse("2024-05-20T10:11:12.123Z"));
+
+        String json = gson.toJson(borrowing);
+
+        assertEquals("{\"user_id\":3,\"resource_id\":1,\"borrow_date\":\"2024-05-20T10:11:12.123Z\",\"status\":\"pending\"}", json);
+    }
+
+    /**
+     * The adapters read catalog rows the same way as the reflective adapter with
+     * setDateFormat, the configuration SupabaseClient used previously.
+     */
+    @Test
+    public void catalogParse_matchesReflectiveGson() {
+        String json = catalogJson(200);
+        Gson reflective = new GsonBuilder()
+            .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
+            .create();
+
+        List<LibraryResource> expected = reflective.fromJson(json, RESOURCE_LIST_TYPE);
+        List<LibraryResource> actual = gson.fromJson(json, RESOURCE_LIST_TYPE);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getResourceId(), actual.get(i).getResourceId());
+            assertEquals(expected.get(i).getTitle(), actual.get(i).getTitle());
+            assertEquals(expected.get(i).getAccessionNumber(), actual.get(i).getAccessionNumber());
+            assertEquals(expected.get(i).getStatus(), actual.get(i).getStatus());
+        }
+    }
+
+    private static String catalogJson(int rows) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= rows; i++) {
+            if (i > 1) {
+                json.append(',');
+            }
+            json.append("{\"resource_id\":").append(i)
+                .append(",\"title\":\"Resource ").append(i)
+                .append("\",\"accession_number\":\"ACC-").append(i)
+                .append("\",\"category\":\"book\",\"status\":\"available\"")
+                .append(",\"created_at\":\"2024-05-20T10:11:12.123Z\"")
+                .append(",\"updated_at\":\"2024-06-01T08:00:00.000Z\"")
+                .append(",\"cover_image\":null}");
+        }
+        return json.append(']').toString();
+    }
+}
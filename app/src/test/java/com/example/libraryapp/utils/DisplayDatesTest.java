@@ -0,0 +1,54 @@
+package com.example.libraryapp.utils;
+
+import com.example.libraryapp.data.json.Timestamps;
+import java.util.Locale;
+import java.util.TimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class DisplayDatesTest {
+    private Locale locale;
+    private TimeZone timeZone;
+
+    @Before
+    public void setUp() {
+        locale = Locale.getDefault();
+        timeZone = TimeZone.getDefault();
+        Locale.setDefault(Locale.US);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(locale);
+        TimeZone.setDefault(timeZone);
+    }
+
+    @Test
+    public void day_usesDeviceTimeZone() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Asia/Manila"));
+
+        // 20:30 UTC is already the next morning in Manila
+        assertEquals("May 21, 2024", DisplayDates.day(Timestamps.parse("2024-05-20T20:30:00.123456+00:00")));
+        assertEquals("May 21, 2024 at 04:30", DisplayDates.dayAndTime(Timestamps.parse("2024-05-20T20:30:00Z")));
+    }
+
+    @Test
+    public void calendarDay_doesNotShiftDateColumns() {
+        TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
+
+        assertEquals("May 20, 2024", DisplayDates.calendarDay(Timestamps.parse("2024-05-20")));
+        assertEquals("May 19, 2024", DisplayDates.day(Timestamps.parse("2024-05-20")));
+    }
+
+    @Test
+    public void followsLocaleChanges() {
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+        assertEquals("Mar 05, 2024", DisplayDates.day(Timestamps.parse("2024-03-05")));
+
+        Locale.setDefault(Locale.FRANCE);
+        assertEquals("mars 05, 2024", DisplayDates.day(Timestamps.parse("2024-03-05")));
+    }
+}
@@ -0,0 +1,82 @@
+-- Creates a borrowing request in one transaction: validates the resource, the user's
+-- pending requests and max_books, inserts the borrowing and marks the resource borrowed.
+-- Called by the app as POST /rest/v1/rpc/request_borrow.
+--
+-- Row locks on the resource and the user serialize concurrent borrows, so two users
+-- cannot both take the same item and one user cannot exceed max_books with parallel
+-- requests. Validation failures are raised with the same messages the app shows.
+
+create or replace function public.request_borrow(
+    p_user_id integer,
+    p_resource_id integer,
+    p_loan_days integer default 7
+)
+returns public.borrowings
+language plpgsql
+security definer
+set search_path = public
+as $$
+declare
+    v_resource_status text;
+    v_max_books integer;
+    v_active_count integer;
+    v_borrowing public.borrowings;
+begin
+    select status::text
+      into v_resource_status
+      from library_resources
+     where resource_id = p_resource_id
+       for update;
+
+    if not found then
+        raise exception 'Resource not found' using errcode = 'P0002';
+    end if;
+
+    if v_resource_status <> 'available' then
+        raise exception 'This resource is not available for borrowing. Current status: %', v_resource_status;
+    end if;
+
+    select coalesce(max_books, 5)
+      into v_max_books
+      from users
+     where user_id = p_user_id
+       for update;
+
+    if not found then
+        raise exception 'User not found' using errcode = 'P0002';
+    end if;
+
+    if exists (
+        select 1
+          from borrowings
+         where user_id = p_user_id
+           and resource_id = p_resource_id
+           and status = 'pending'
+    ) then
+        raise exception 'You already have a pending request for this resource';
+    end if;
+
+    select count(*)
+      into v_active_count
+      from borrowings
+     where user_id = p_user_id
+       and status in ('pending', 'active', 'overdue');
+
+    if v_active_count >= v_max_books then
+        raise exception 'You have reached your maximum borrowing limit';
+    end if;
+
+    insert into borrowings (user_id, resource_id, borrow_date, due_date, status, fine_amount)
+    values (p_user_id, p_resource_id, now(), now() + make_interval(days => p_loan_days), 'pending', 0.00)
+    returning * into v_borrowing;
+
+    update library_resources
+       set status = 'borrowed',
+           updated_at = now()
+     where resource_id = p_resource_id;
+
+    return v_borrowing;
+end;
+$$;
+
+grant execute on function public.request_borrow(integer, integer, integer) to anon, authenticated;
@@ -0,0 +1,107 @@
+-- Client-generated idempotency keys for borrowing requests. A retry or double-tap sends the
+-- same key, and gets back the borrowing the first attempt created instead of a duplicate.
+
+alter table public.borrowings
+    add column if not exists idempotency_key uuid;
+
+-- Unique so POST /rest/v1/borrowings?on_conflict=idempotency_key can ignore duplicates;
+-- older rows without a key are not constrained
+create unique index if not exists borrowings_idempotency_key_key
+    on public.borrowings (idempotency_key);
+
+-- Replace rather than overload: PostgREST cannot choose between two request_borrow
+-- functions that both accept (p_user_id, p_resource_id)
+drop function if exists public.request_borrow(integer, integer, integer);
+
+create or replace function public.request_borrow(
+    p_user_id integer,
+    p_resource_id integer,
+    p_loan_days integer default 7,
+    p_idempotency_key uuid default null
+)
+returns public.borrowings
+language plpgsql
+security definer
+set search_path = public
+as $$
+declare
+    v_resource_status text;
+    v_max_books integer;
+    v_active_count integer;
+    v_borrowing public.borrowings;
+begin
+    select status::text
+      into v_resource_status
+      from library_resources
+     where resource_id = p_resource_id
+       for update;
+
+    if not found then
+        raise exception 'Resource not found' using errcode = 'P0002';
+    end if;
+
+    -- A repeated key returns the original borrowing before validation, which would now
+    -- reject it because the first attempt already marked the resource borrowed. Checked
+    -- under the resource lock so two attempts with one key cannot both insert.
+    if p_idempotency_key is not null then
+        select *
+          into v_borrowing
+          from borrowings
+         where idempotency_key = p_idempotency_key;
+
+        if found then
+            if v_borrowing.user_id <> p_user_id or v_borrowing.resource_id <> p_resource_id then
+                raise exception 'Idempotency key was already used for a different request';
+            end if;
+            return v_borrowing;
+        end if;
+    end if;
+
+    if v_resource_status <> 'available' then
+        raise exception 'This resource is not available for borrowing. Current status: %', v_resource_status;
+    end if;
+
+    select coalesce(max_books, 5)
+      into v_max_books
+      from users
+     where user_id = p_user_id
+       for update;
+
+    if not found then
+        raise exception 'User not found' using errcode = 'P0002';
+    end if;
+
+    if exists (
+        select 1
+          from borrowings
+         where user_id = p_user_id
+           and resource_id = p_resource_id
+           and status = 'pending'
+    ) then
+        raise exception 'You already have a pending request for this resource';
+    end if;
+
+    select count(*)
+      into v_active_count
+      from borrowings
+     where user_id = p_user_id
+       and status in ('pending', 'active', 'overdue');
+
+    if v_active_count >= v_max_books then
+        raise exception 'You have reached your maximum borrowing limit';
+    end if;
+
+    insert into borrowings (user_id, resource_id, borrow_date, due_date, status, fine_amount, idempotency_key)
+    values (p_user_id, p_resource_id, now(), now() + make_interval(days => p_loan_days), 'pending', 0.00, p_idempotency_key)
+    returning * into v_borrowing;
+
+    update library_resources
+       set status = 'borrowed',
+           updated_at = now()
+     where resource_id = p_resource_id;
+
+    return v_borrowing;
+end;
+$$;
+
+grant execute on function public.request_borrow(integer, integer, integer, uuid) to anon, authenticated;
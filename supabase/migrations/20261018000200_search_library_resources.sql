@@ -0,0 +1,151 @@
+-- Ranked catalog search for GET /rest/v1/rpc/search_library_resources.
+--
+-- Each resource gets a tsvector built from its title, its detail row (author, publisher,
+-- ISBN/ISSN, media format) and its accession number. The vectors live in a side table so
+-- that select=* on library_resources does not carry them. Triggers on the resource and
+-- detail tables keep them current. A trigram index on titles catches typos and partial
+-- words that full-text matching misses.
+--
+-- The function returns library_resources rows, so callers can embed details with
+-- select=*,books(*),periodicals(*),media_resources(*). Rows come back best match first.
+
+create extension if not exists pg_trgm with schema extensions;
+
+create table if not exists public.library_resource_search (
+    resource_id integer primary key references public.library_resources (resource_id) on delete cascade,
+    document tsvector not null
+);
+
+-- Only read through the security definer functions below
+alter table public.library_resource_search enable row level security;
+
+create index if not exists library_resource_search_document_idx
+    on public.library_resource_search using gin (document);
+
+create index if not exists library_resources_title_trgm_idx
+    on public.library_resources using gin (lower(title) extensions.gin_trgm_ops);
+
+-- Identifiers are indexed both as written and without punctuation, so
+-- "978-0-441-17271-9" and "9780441172719" find the same book
+create or replace function public.compact_identifier(value text)
+returns text
+language sql
+immutable
+as $$
+    select nullif(regexp_replace(coalesce(value, ''), '[^0-9A-Za-z]', '', 'g'), '')
+$$;
+
+create or replace function public.refresh_resource_search(p_resource_id integer)
+returns void
+language sql
+security definer
+set search_path = public
+as $$
+    insert into library_resource_search (resource_id, document)
+    select r.resource_id,
+           setweight(to_tsvector('simple', coalesce(r.title, '')), 'A')
+        || setweight(to_tsvector('simple', coalesce(b.author, '')), 'B')
+        || setweight(to_tsvector('simple', concat_ws(' ',
+               r.accession_number, b.isbn, compact_identifier(b.isbn), p.issn, compact_identifier(p.issn))), 'C')
+        || setweight(to_tsvector('simple', concat_ws(' ', b.publisher, m.format::text, m.media_type::text)), 'D')
+      from library_resources r
+      left join lateral (select author, isbn, publisher from books where resource_id = r.resource_id limit 1) b on true
+      left join lateral (select issn from periodicals where resource_id = r.resource_id limit 1) p on true
+      left join lateral (select format, media_type from media_resources where resource_id = r.resource_id limit 1) m on true
+     where r.resource_id = p_resource_id
+    on conflict (resource_id) do update set document = excluded.document;
+$$;
+
+create or replace function public.library_resource_search_trigger()
+returns trigger
+language plpgsql
+security definer
+set search_path = public
+as $$
+begin
+    -- Deleting a resource cascades to its search row; deleting a detail row re-indexes without it
+    if tg_op = 'DELETE' then
+        perform refresh_resource_search(old.resource_id);
+        return old;
+    end if;
+
+    perform refresh_resource_search(new.resource_id);
+    if tg_op = 'UPDATE' and old.resource_id <> new.resource_id then
+        perform refresh_resource_search(old.resource_id);
+    end if;
+    return new;
+end;
+$$;
+
+drop trigger if exists library_resources_search on public.library_resources;
+create trigger library_resources_search
+    after insert or update of title, accession_number on public.library_resources
+    for each row execute function public.library_resource_search_trigger();
+
+drop trigger if exists books_search on public.books;
+create trigger books_search
+    after insert or update or delete on public.books
+    for each row execute function public.library_resource_search_trigger();
+
+drop trigger if exists periodicals_search on public.periodicals;
+create trigger periodicals_search
+    after insert or update or delete on public.periodicals
+    for each row execute function public.library_resource_search_trigger();
+
+drop trigger if exists media_resources_search on public.media_resources;
+create trigger media_resources_search
+    after insert or update or delete on public.media_resources
+    for each row execute function public.library_resource_search_trigger();
+
+-- Backfill existing rows
+select public.refresh_resource_search(resource_id) from public.library_resources;
+
+create or replace function public.search_library_resources(
+    p_query text,
+    p_category text default null,
+    p_limit integer default 20,
+    p_offset integer default 0
+)
+returns setof public.library_resources
+language sql
+stable
+security definer
+set search_path = public, extensions
+as $$
+    with terms as (
+        -- Every word is a prefix, so results appear while the last word is still being typed
+        select to_tsquery('simple', string_agg(quote_literal(word) || ':*', ' & ')) as words
+          from regexp_split_to_table(lower(p_query), '[^[:alnum:]]+') as word
+         where word <> ''
+    ), query as (
+        select case
+                   when p_query ~ '[0-9]' and length(compact_identifier(p_query)) >= 4
+                   then words || to_tsquery('simple', quote_literal(lower(compact_identifier(p_query))) || ':*')
+                   else words
+               end as tsq,
+               lower(trim(p_query)) as text
+          from terms
+    ), matches as (
+        -- Separate branches so each one can use its own index
+        select s.resource_id
+          from library_resource_search s, query q
+         where s.document @@ q.tsq
+        union
+        select r.resource_id
+          from library_resources r, query q
+         where lower(r.title) % q.text
+    )
+    select r.*
+      from matches m
+      join library_resources r on r.resource_id = m.resource_id
+      left join library_resource_search s on s.resource_id = m.resource_id
+     cross join query q
+     where q.text <> ''
+       and (p_category is null or r.category::text = p_category)
+     order by coalesce(ts_rank_cd(s.document, q.tsq), 0) + similarity(lower(r.title), q.text) desc,
+              r.resource_id
+     limit least(greatest(p_limit, 1), 100)
+    offset greatest(p_offset, 0);
+$$;
+
+grant execute on function public.search_library_resources(text, text, integer, integer) to anon, authenticated;
@@ -0,0 +1,25 @@
+-- Keep library_resources.updated_at current on every update. The app's delta sync asks for
+-- rows with updated_at past its watermark, so a write that leaves the column alone (a plain
+-- PATCH of status, for one) would never reach clients that already loaded the row.
+
+alter table public.library_resources
+    alter column updated_at set default now();
+
+create or replace function public.touch_updated_at()
+returns trigger
+language plpgsql
+as $$
+begin
+    new.updated_at := now();
+    return new;
+end;
+$$;
+
+drop trigger if exists library_resources_touch_updated_at on public.library_resources;
+create trigger library_resources_touch_updated_at
+    before update on public.library_resources
+    for each row execute function public.touch_updated_at();
+
+-- Serves updated_at=gt.<watermark>&order=updated_at.asc without a scan
+create index if not exists library_resources_updated_at_idx
+    on public.library_resources (updated_at);
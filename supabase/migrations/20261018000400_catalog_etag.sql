@@ -0,0 +1,86 @@
+-- Conditional GETs for the catalog. PostgREST sends no validators of its own, so once the
+-- app's cached catalog pages go stale (max-age 60-300s) they would be downloaded again in
+-- full even when nothing changed.
+--
+-- Every write to the catalog tables bumps a single version number. A pre-request hook tags
+-- catalog GET responses with ETag W/"catalog-<version>" and answers 304 Not Modified when
+-- the client's If-None-Match still carries the current version. The app's HTTP cache then
+-- keeps its stored body and the parsed copy of it.
+--
+-- The version covers the whole catalog, so any write revalidates every cached page; that
+-- keeps deletes and detail-table edits correct without per-query bookkeeping. The query
+-- itself still runs on a 304, only the body is not sent.
+
+create table if not exists public.catalog_version (
+    id boolean primary key default true check (id),
+    version bigint not null default 1
+);
+
+insert into public.catalog_version (id) values (true) on conflict do nothing;
+
+alter table public.catalog_version enable row level security;
+
+create or replace function public.bump_catalog_version()
+returns trigger
+language plpgsql
+security definer
+set search_path = public
+as $$
+begin
+    update public.catalog_version set version = version + 1;
+    return null;
+end;
+$$;
+
+drop trigger if exists library_resources_bump_catalog_version on public.library_resources;
+create trigger library_resources_bump_catalog_version
+    after insert or update or delete on public.library_resources
+    for each statement execute function public.bump_catalog_version();
+
+drop trigger if exists books_bump_catalog_version on public.books;
+create trigger books_bump_catalog_version
+    after insert or update or delete on public.books
+    for each statement execute function public.bump_catalog_version();
+
+drop trigger if exists periodicals_bump_catalog_version on public.periodicals;
+create trigger periodicals_bump_catalog_version
+    after insert or update or delete on public.periodicals
+    for each statement execute function public.bump_catalog_version();
+
+drop trigger if exists media_resources_bump_catalog_version on public.media_resources;
+create trigger media_resources_bump_catalog_version
+    after insert or update or delete on public.media_resources
+    for each statement execute function public.bump_catalog_version();
+
+-- Runs before every request; does nothing outside catalog GETs
+create or replace function public.catalog_conditional_get()
+returns void
+language plpgsql
+security definer
+set search_path = public
+as $$
+declare
+    v_etag text;
+begin
+    if current_setting('request.method', true) is distinct from 'GET'
+       or coalesce(current_setting('request.path', true), '') not in (
+           '/library_resources', '/books', '/periodicals', '/media_resources',
+           '/rpc/search_library_resources') then
+        return;
+    end if;
+
+    select format('W/"catalog-%s"', version) into v_etag from public.catalog_version;
+    perform set_config('response.headers',
+        json_build_array(json_build_object('ETag', v_etag))::text, true);
+
+    if current_setting('request.headers', true)::json ->> 'if-none-match' = v_etag then
+        perform set_config('response.status', '304', true);
+    end if;
+end;
+$$;
+
+grant execute on function public.catalog_conditional_get() to anon, authenticated;
+
+-- Replaces any earlier db-pre-request setting; there is none in this project
+alter role authenticator set pgrst.db_pre_request = 'public.catalog_conditional_get';
+notify pgrst, 'reload config';